@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import org.fenixedu.academic.domain.student.Registration;
+import org.joda.time.DateTime;
+
+/**
+ * Approved ECTS credits of each cycle of a registration, stored when eligibility is precomputed so that every node can
+ * use them, and kept until the next precomputation.
+ */
+public class CandidacyEligibilitySnapshot extends CandidacyEligibilitySnapshot_Base {
+
+    public CandidacyEligibilitySnapshot(Registration registration) {
+        super();
+        setRegistration(registration);
+    }
+
+    public void update(String studentCurricularPlanId, Double firstCycleCredits, Double secondCycleCredits,
+            DateTime computedAt) {
+        setStudentCurricularPlanId(studentCurricularPlanId);
+        setFirstCycleCredits(firstCycleCredits);
+        setSecondCycleCredits(secondCycleCredits);
+        setComputedAt(computedAt);
+    }
+
+    public static CandidacyEligibilitySnapshot getInstance(Registration registration) {
+        CandidacyEligibilitySnapshot snapshot = registration.getCandidacyEligibilitySnapshot();
+        return snapshot != null ? snapshot : new CandidacyEligibilitySnapshot(registration);
+    }
+
+}
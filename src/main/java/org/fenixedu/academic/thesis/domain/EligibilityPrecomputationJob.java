@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import org.joda.time.DateTime;
+
+/**
+ * State of the eligibility precomputation of a configuration, so that every node knows whether one is running. Its
+ * progress is read from the {@link CandidacyEligibilitySnapshot}s taken since it started.
+ */
+public class EligibilityPrecomputationJob extends EligibilityPrecomputationJob_Base {
+
+    public EligibilityPrecomputationJob(ThesisProposalsConfiguration configuration) {
+        super();
+        setThesisProposalsConfiguration(configuration);
+        restart();
+    }
+
+    public void restart() {
+        setStarted(new DateTime());
+        setTotal(0);
+        setFinished(false);
+        setFailed(false);
+    }
+
+    public void finish(boolean failed) {
+        setFinished(true);
+        setFailed(failed);
+    }
+
+    public void delete() {
+        setThesisProposalsConfiguration(null);
+        deleteDomainObject();
+    }
+
+}
@@ -1,19 +1,135 @@
 package org.fenixedu.academic.thesis.domain;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.joda.time.DateTime;
 
+import pt.ist.fenixframework.DomainObject;
+import pt.ist.fenixframework.FenixFramework;
+
 public class ProposalsLog extends ProposalsLog_Base {
 
     public ProposalsLog(ThesisProposal proposal, StudentThesisCandidacy candidacy, String action) {
+        this(proposal, candidacy, action, null, null, null);
+    }
+
+    /**
+     * Entry that can be replayed, see {@link ProposalsLogEventType}. The proposal, if any, is recorded as the event's
+     * parent, see {@link #getLoggedProposalId()}.
+     */
+    public ProposalsLog(ThesisProposal proposal, StudentThesisCandidacy candidacy, String action,
+            ProposalsLogEventType eventType, String eventSubject, String eventValue) {
         super();
+        setEventType(eventType);
+        setEventSubject(eventSubject);
+        setEventParent(proposal != null ? proposal.getExternalId() : null);
+        setEventValue(eventValue);
         setAuthor(Authenticate.getUser());
         setAction(action);
         setTimestamp(new DateTime());
+        setProposalsLogShard(ProposalsLogBucket.getInstance(getTimestamp()).getShard(getAuthor()));
+        setLoggedCandidacy(candidacy);
 
         setThesisProposal(proposal != null ? proposal.getIdentifier() + " - " + proposal.getTitle() + " ("
                 + proposal.getExternalId() + ")" : null);
         setCandidacy(candidacy != null ? candidacy.getRegistration().getStudent().getNumber() + " @ " + candidacy.getTimestamp()
                 + " (" + candidacy.getExternalId() + ")" : null);
     }
+
+    /**
+     * Summary of the entries of a candidacy, written by {@link #compact(StudentThesisCandidacy, List)}.
+     */
+    private ProposalsLog(StudentThesisCandidacy candidacy, List<ProposalsLog> entries) {
+        super();
+        ProposalsLog first = entries.get(0);
+        ProposalsLog last = entries.get(entries.size() - 1);
+
+        setAuthor(last.getAuthor());
+        setTimestamp(last.getTimestamp());
+        setProposalsLogShard(last.getProposalsLogShard());
+        setLoggedCandidacy(candidacy);
+        setThesisProposal(last.getThesisProposal());
+        setCandidacy(last.getCandidacy());
+        setCompacted(true);
+        setEventType(ProposalsLogEventType.CANDIDACY_COMPACTED);
+        setEventSubject(candidacy.getExternalId());
+        setEventParent(candidacy.getThesisProposal().getExternalId());
+        setEventValue(candidacy.getRegistration().getExternalId() + " " + candidacy.getPreferenceNumber() + " "
+                + candidacy.getAcceptedByAdvisor());
+
+        ProposalsLogSummary summary =
+                new ProposalsLogSummary(entries.stream().map(ProposalsLog::getAction).collect(Collectors.toList()),
+                        first.getTimestamp(), last.getTimestamp());
+        setAction(summary.getAction(candidacy.getPreferenceNumber(), candidacy.getAcceptedByAdvisor()));
+    }
+
+    /**
+     * Replaces the given entries of a candidacy, sorted by timestamp, with a single summary entry. The entries themselves
+     * are deleted, so callers must keep a copy of them beforehand.
+     */
+    public static ProposalsLog compact(StudentThesisCandidacy candidacy, List<ProposalsLog> entries) {
+        ProposalsLog summary = new ProposalsLog(candidacy, entries);
+        entries.forEach(ProposalsLog::delete);
+        return summary;
+    }
+
+    public boolean isCompacted() {
+        return getCompacted();
+    }
+
+    public boolean isIndexed() {
+        return getProposalsLogShard() != null;
+    }
+
+    /**
+     * Indexes an entry written before entries were indexed: adds it to the given bucket, which must be the one of its
+     * timestamp, and links it to the candidacy whose external id ends its description, if it still exists.
+     */
+    public void index(ProposalsLogBucket bucket) {
+        setProposalsLogShard(bucket.getShard(getAuthor()));
+
+        if (getLoggedCandidacy() == null) {
+            setLoggedCandidacy(readDescribed(getCandidacy(), StudentThesisCandidacy.class));
+        }
+    }
+
+    /**
+     * External id of the proposal this entry is about, which stays readable after the proposal is deleted. Entries are
+     * not linked to their proposal, as every candidacy of a popular proposal would write to the same set. It is recorded
+     * as the event's parent, and at the end of the description of entries written before that.
+     */
+    public String getLoggedProposalId() {
+        return getEventParent() != null ? getEventParent() : getDescribedId(getThesisProposal());
+    }
+
+    private static String getDescribedId(String description) {
+        if (description == null || !description.endsWith(")") || description.lastIndexOf('(') < 0) {
+            return null;
+        }
+        return description.substring(description.lastIndexOf('(') + 1, description.length() - 1);
+    }
+
+    private static <T extends DomainObject> T readDescribed(String description, Class<T> type) {
+        String externalId = getDescribedId(description);
+        if (externalId == null) {
+            return null;
+        }
+
+        try {
+            DomainObject object = FenixFramework.getDomainObject(externalId);
+            return type.isInstance(object) && FenixFramework.isDomainObjectValid(object) ? type.cast(object) : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void delete() {
+        setAuthor(null);
+        setProposalsLogShard(null);
+        setLoggedCandidacy(null);
+
+        deleteDomainObject();
+    }
 }
@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import org.fenixedu.bennu.core.domain.User;
+
+/**
+ * Raw {@link ProposalsLog} entries of a configuration, moved out of the object store when its log is compacted.
+ */
+public class ProposalsLogArchive extends ProposalsLogArchive_Base {
+
+    public ProposalsLogArchive(ThesisProposalsConfiguration configuration, String filename, byte[] content) {
+        super();
+        init(filename, filename, content);
+        setThesisProposalsConfiguration(configuration);
+    }
+
+    @Override
+    public boolean isAccessible(User user) {
+        return ThesisProposalsSystem.getInstance().getCanManageThesisGroup().isMember(user);
+    }
+
+    @Override
+    public void delete() {
+        setThesisProposalsConfiguration(null);
+        super.delete();
+    }
+
+}
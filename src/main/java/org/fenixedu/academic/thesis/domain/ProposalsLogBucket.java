@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import java.util.stream.Stream;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.joda.time.DateTime;
+
+/**
+ * Groups the {@link ProposalsLog} entries written in an hour. Buckets are chained from the latest one backwards, so time
+ * range queries only visit the buckets in the range. The entries of a bucket are spread by author over a fixed number of
+ * {@link ProposalsLogShard}s, created along with the bucket, so concurrent writers seldom add to the same set.
+ */
+public class ProposalsLogBucket extends ProposalsLogBucket_Base {
+
+    public static final int SHARDS = 16;
+
+    private ProposalsLogBucket(DateTime start, ProposalsLogBucket previous) {
+        super();
+        setStart(start);
+        setPrevious(previous);
+
+        for (int index = 0; index < SHARDS; index++) {
+            new ProposalsLogShard(this, index);
+        }
+    }
+
+    /**
+     * Returns the bucket of the hour of the given timestamp, creating it if needed. Entries are written in the latest
+     * bucket, so the chain is only walked when indexing older entries.
+     */
+    public static ProposalsLogBucket getInstance(DateTime timestamp) {
+        DateTime start = timestamp.hourOfDay().roundFloorCopy();
+
+        ProposalsLogBucket next = null;
+        ProposalsLogBucket bucket = getLatest();
+        while (bucket != null && bucket.getStart().isAfter(start)) {
+            next = bucket;
+            bucket = bucket.getPrevious();
+        }
+
+        if (bucket != null && bucket.getStart().isEqual(start)) {
+            return bucket;
+        }
+
+        ProposalsLogBucket created = new ProposalsLogBucket(start, bucket);
+        if (next == null) {
+            ThesisProposalsSystem.getInstance().setLatestProposalsLogBucket(created);
+        } else {
+            next.setPrevious(created);
+        }
+        return created;
+    }
+
+    public static ProposalsLogBucket getLatest() {
+        return ThesisProposalsSystem.getInstance().getLatestProposalsLogBucket();
+    }
+
+    public DateTime getEnd() {
+        return getStart().plusHours(1);
+    }
+
+    public ProposalsLogShard getShard(User author) {
+        int index = Math.floorMod(author != null ? author.getExternalId().hashCode() : 0, SHARDS);
+        return getProposalsLogShardSet().stream().filter(shard -> shard.getIndex() == index).findAny().get();
+    }
+
+    public Stream<ProposalsLog> getProposalsLogs() {
+        return getProposalsLogShardSet().stream().flatMap(shard -> shard.getProposalsLogSet().stream());
+    }
+
+}
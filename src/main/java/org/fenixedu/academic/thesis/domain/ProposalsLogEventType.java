@@ -0,0 +1,38 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+/**
+ * Structured type of a {@link ProposalsLog} entry. The subject of proposal events is the proposal, and the subject of
+ * candidacy events is the candidacy, whose proposal is kept as the entry's parent. Values are plain strings:
+ * <ul>
+ * <li>{@link #PROPOSAL_CREATED} and {@link #PROPOSAL_VISIBILITY}: whether the proposal is hidden</li>
+ * <li>{@link #CANDIDACY_CREATED}: the registration and the preference number, separated by a space</li>
+ * <li>{@link #CANDIDACY_PREFERENCE}: the new preference number</li>
+ * <li>{@link #CANDIDACY_ACCEPTANCE}: whether the candidacy is accepted by the advisor</li>
+ * <li>{@link #CANDIDACY_COMPACTED}: the registration, the preference number and the acceptance, separated by spaces</li>
+ * <li>{@link #PREFERENCES_REORDERED}: comma separated candidacy=preference pairs, the subject being the registration</li>
+ * </ul>
+ */
+public enum ProposalsLogEventType {
+
+    PROPOSAL_CREATED, PROPOSAL_VISIBILITY, PROPOSAL_DELETED, CANDIDACY_CREATED, CANDIDACY_PREFERENCE, CANDIDACY_ACCEPTANCE,
+    CANDIDACY_DELETED, CANDIDACY_COMPACTED, PREFERENCES_REORDERED;
+
+}
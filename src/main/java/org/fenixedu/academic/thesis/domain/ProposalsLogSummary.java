@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+/**
+ * Counts the updates among the {@link ProposalsLog} entries of a candidacy that a compaction replaces, and describes them
+ * in the action of the summary entry.
+ */
+public class ProposalsLogSummary {
+
+    private static final String PREFERENCE_UPDATE = "Updating preference number";
+    private static final String ACCEPTANCE_UPDATE = "Updating advisor acceptance";
+
+    private final int entries;
+    private final DateTime first;
+    private final DateTime last;
+    private final long preferenceUpdates;
+    private final long acceptanceUpdates;
+
+    /**
+     * @param actions the actions of the entries, oldest first
+     */
+    public ProposalsLogSummary(List<String> actions, DateTime first, DateTime last) {
+        this.entries = actions.size();
+        this.first = first;
+        this.last = last;
+        this.preferenceUpdates = actions.stream().filter(action -> action.startsWith(PREFERENCE_UPDATE)).count();
+        this.acceptanceUpdates = actions.stream().filter(action -> action.startsWith(ACCEPTANCE_UPDATE)).count();
+    }
+
+    public long getPreferenceUpdates() {
+        return preferenceUpdates;
+    }
+
+    public long getAcceptanceUpdates() {
+        return acceptanceUpdates;
+    }
+
+    public String getAction(int preferenceNumber, boolean acceptedByAdvisor) {
+        return "Compacted " + entries + " entries from " + first + " to " + last + ": " + preferenceUpdates
+                + " preference number updates (final " + preferenceNumber + "), " + acceptanceUpdates
+                + " advisor acceptance updates (final " + acceptedByAdvisor + ")";
+    }
+
+}
@@ -20,6 +20,8 @@ package org.fenixedu.academic.thesis.domain;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.fenixedu.academic.domain.student.Registration;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalsDomainException;
@@ -59,40 +61,90 @@ public class StudentThesisCandidacy extends StudentThesisCandidacy_Base {
     public final static Comparator<StudentThesisCandidacy> COMPARATOR_BY_CANDIDACY_PERIOD_AND_PREFERENCE_NUMBER =
             COMPARATOR_BY_CANDIDACY_PERIOD.thenComparing(COMPARATOR_BY_PREFERENCE_NUMBER);
 
+    public static final String SIGNAL_CREATED = "fenixedu.academic.thesis.studentThesisCandidacy.created";
+    public static final String SIGNAL_EDITED = "fenixedu.academic.thesis.studentThesisCandidacy.edited";
+    public static final String SIGNAL_ACCEPTED = "fenixedu.academic.thesis.studentThesisCandidacy.accepted";
+    public static final String SIGNAL_REVOKED = "fenixedu.academic.thesis.studentThesisCandidacy.revoked";
+    public static final String SIGNAL_DELETED = "fenixedu.academic.thesis.studentThesisCandidacy.deleted";
+
     public StudentThesisCandidacy(Registration registration, Integer preferenceNumber, ThesisProposal thesisProposal) {
         super();
-        setThesisProposalsSystem(ThesisProposalsSystem.getInstance());
         setThesisProposal(thesisProposal);
         setRegistration(registration);
         setTimestamp(new DateTime());
-        setAcceptedByAdvisor(false);
-        setPreferenceNumber(preferenceNumber);
-        
-        new ProposalsLog(thesisProposal, this, "Creating new student thesis candidacy");
+        super.setAcceptedByAdvisor(false);
+        super.setPreferenceNumber(preferenceNumber);
+
+        new ProposalsLog(thesisProposal, this, "Creating new student thesis candidacy", ProposalsLogEventType.CANDIDACY_CREATED,
+                getExternalId(), registration.getExternalId() + " " + preferenceNumber);
     }
 
     @Override
     public void setPreferenceNumber(int preferenceNumber) {
         new ProposalsLog(getThesisProposal(), this, "Updating preference number " + getPreferenceNumber() + " -> "
-                + preferenceNumber);
+                + preferenceNumber, ProposalsLogEventType.CANDIDACY_PREFERENCE, getExternalId(),
+                String.valueOf(preferenceNumber));
+        super.setPreferenceNumber(preferenceNumber);
+    }
+
+    /**
+     * Applies a new ordering of a student's candidacies, writing only the preference numbers that changed and
+     * recording the whole reordering as a single log entry.
+     *
+     * @return the number of candidacies whose preference number changed
+     */
+    public static int reorderPreferenceNumbers(Map<StudentThesisCandidacy, Integer> preferences) {
+        StringBuilder changes = new StringBuilder();
+        StringBuilder preferenceNumbers = new StringBuilder();
+        int changed = 0;
+
+        for (Entry<StudentThesisCandidacy, Integer> entry : preferences.entrySet()) {
+            StudentThesisCandidacy candidacy = entry.getKey();
+            int preferenceNumber = entry.getValue();
+
+            if (candidacy.getPreferenceNumber() != preferenceNumber) {
+                changes.append(changed == 0 ? "" : ", ").append(candidacy.getExternalId()).append(" ")
+                        .append(candidacy.getPreferenceNumber()).append(" -> ").append(preferenceNumber);
+                preferenceNumbers.append(changed == 0 ? "" : ",").append(candidacy.getExternalId()).append("=")
+                        .append(preferenceNumber);
+                candidacy.setPreferenceNumberWithoutLog(preferenceNumber);
+                changed++;
+            }
+        }
+
+        if (changed > 0) {
+            Registration registration = preferences.keySet().iterator().next().getRegistration();
+            new ProposalsLog(null, null, "Reordering preference numbers of student " + registration.getStudent().getNumber()
+                    + ": " + changes, ProposalsLogEventType.PREFERENCES_REORDERED, registration.getExternalId(),
+                    preferenceNumbers.toString());
+        }
+
+        return changed;
+    }
+
+    private void setPreferenceNumberWithoutLog(int preferenceNumber) {
         super.setPreferenceNumber(preferenceNumber);
     }
 
     @Override
     public void setAcceptedByAdvisor(boolean acceptedByAdvisor) {
         new ProposalsLog(getThesisProposal(), this, "Updating advisor acceptance " + getAcceptedByAdvisor() + " -> "
-                + acceptedByAdvisor);
+                + acceptedByAdvisor, ProposalsLogEventType.CANDIDACY_ACCEPTANCE, getExternalId(),
+                String.valueOf(acceptedByAdvisor));
         super.setAcceptedByAdvisor(acceptedByAdvisor);
     }
 
     public void delete() {
 
-        new ProposalsLog(getThesisProposal(), null, "Deleting Student thesis candidacy");
+        new ProposalsLog(getThesisProposal(), null, "Deleting Student thesis candidacy", ProposalsLogEventType.CANDIDACY_DELETED,
+                getExternalId(), null);
 
         ThesisProposalsDomainException.throwWhenDeleteBlocked(getDeletionBlockers());
 
         this.setThesisProposal(null);
         this.setThesisProposalsSystem(null);
+        this.setThesisProposalsYear(null);
+        this.getProposalsLogSet().clear();
         this.setRegistration(null);
 
         deleteDomainObject();
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Event of the {@link StudentThesisCandidacy} signals. It captures the identifiers of the candidacy and of the objects
+ * it relates to when it is created, so that handlers running after the transaction commits can use them even if the
+ * candidacy was deleted.
+ */
+public class StudentThesisCandidacyEvent {
+
+    private final String candidacyId;
+    private final String proposalId;
+    private final String registrationId;
+    private final String studentId;
+    private final Set<String> configurationIds;
+
+    public StudentThesisCandidacyEvent(StudentThesisCandidacy candidacy) {
+        this.candidacyId = candidacy.getExternalId();
+        this.proposalId = candidacy.getThesisProposal().getExternalId();
+        this.registrationId = candidacy.getRegistration().getExternalId();
+        this.studentId = candidacy.getRegistration().getStudent().getExternalId();
+        this.configurationIds =
+                candidacy.getThesisProposal().getThesisConfigurationSet().stream().map(ThesisProposalsConfiguration::getExternalId)
+                        .collect(Collectors.toSet());
+    }
+
+    public String getCandidacyId() {
+        return candidacyId;
+    }
+
+    public String getProposalId() {
+        return proposalId;
+    }
+
+    public String getRegistrationId() {
+        return registrationId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public Set<String> getConfigurationIds() {
+        return configurationIds;
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * Progress of the creation of the theses of a configuration. It is updated in the same transaction as each chunk of
+ * theses, so every node sees the same progress, and a job whose node went away is recognised by having stopped
+ * reporting progress.
+ */
+public class ThesisCreationJob extends ThesisCreationJob_Base {
+
+    public static final Duration STALL_TIMEOUT = Duration.standardMinutes(15);
+
+    public ThesisCreationJob(ThesisProposalsConfiguration configuration, User startedBy) {
+        super();
+        setThesisProposalsConfiguration(configuration);
+        restart(startedBy);
+    }
+
+    /**
+     * Starts a new run of the job. A worker still processing an earlier run notices that {@link #getStarted()} changed
+     * and stops.
+     */
+    public void restart(User startedBy) {
+        setStartedBy(startedBy);
+        setStarted(new DateTime());
+        setLastProgress(getStarted());
+        setTotal(0);
+        setCreated(0);
+        setUpdated(0);
+        setUnchanged(0);
+        setSkipped(0);
+        setFinished(false);
+        setFailed(false);
+    }
+
+    public int getProcessed() {
+        return getCreated() + getUpdated() + getUnchanged() + getSkipped();
+    }
+
+    public void start(int total) {
+        setTotal(total);
+        setLastProgress(new DateTime());
+    }
+
+    public void progress(int created, int updated, int unchanged, int skipped) {
+        setCreated(getCreated() + created);
+        setUpdated(getUpdated() + updated);
+        setUnchanged(getUnchanged() + unchanged);
+        setSkipped(getSkipped() + skipped);
+        setLastProgress(new DateTime());
+    }
+
+    public void finish(boolean failed) {
+        setFinished(true);
+        setFailed(failed);
+        setLastProgress(new DateTime());
+    }
+
+    public boolean isStalled() {
+        return !getFinished() && getLastProgress().plus(STALL_TIMEOUT).isBeforeNow();
+    }
+
+    public boolean isRunning() {
+        return !getFinished() && !isStalled();
+    }
+
+    public void delete() {
+        setThesisProposalsConfiguration(null);
+        setStartedBy(null);
+        deleteDomainObject();
+    }
+
+}
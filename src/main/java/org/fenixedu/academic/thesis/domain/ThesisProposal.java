@@ -56,6 +56,8 @@ public class ThesisProposal extends ThesisProposal_Base {
                     arg0.getSingleThesisProposalsConfiguration(), arg1.getSingleThesisProposalsConfiguration());
 
     public static final String SIGNAL_CREATED = "fenixedu.academic.thesis.thesisProposal.created";
+    public static final String SIGNAL_EDITED = "fenixedu.academic.thesis.thesisProposal.edited";
+    public static final String SIGNAL_DELETED = "fenixedu.academic.thesis.thesisProposal.deleted";
 
     @Override
     public Set<StudentThesisCandidacy> getStudentThesisCandidacySet() {
@@ -77,8 +79,15 @@ public class ThesisProposal extends ThesisProposal_Base {
     public ThesisProposal(String title, String observations, String requirements, String goals, String localization,
             Set<ThesisProposalParticipant> participants, Set<ThesisProposalsConfiguration> configurations) {
 
+        this(ThesisProposalsSystem.getInstance().generateProposalIdentifier(), title, observations, requirements, goals,
+                localization, participants, configurations);
+    }
+
+    public ThesisProposal(String identifier, String title, String observations, String requirements, String goals,
+            String localization, Set<ThesisProposalParticipant> participants, Set<ThesisProposalsConfiguration> configurations) {
+
         setThesisProposalsSystem(ThesisProposalsSystem.getInstance());
-        setIdentifier(ThesisProposalsSystem.getInstance().generateProposalIdentifier());
+        setIdentifier(identifier);
         setTitle(title);
         setObservations(observations);
         setRequirements(requirements);
@@ -86,9 +95,23 @@ public class ThesisProposal extends ThesisProposal_Base {
         setLocalization(localization);
         getThesisProposalParticipantSet().addAll(participants);
         getThesisConfigurationSet().addAll(configurations);
-        setHidden(true);
+        if (!configurations.isEmpty()) {
+            setThesisProposalsYear(ThesisProposalsYear.getInstance(configurations.iterator().next().getExecutionDegree()
+                    .getExecutionYear()));
+        }
+        super.setHidden(true);
 
-        new ProposalsLog(this, null, "Creating new thesis proposal");
+        new ProposalsLog(this, null, "Creating new thesis proposal", ProposalsLogEventType.PROPOSAL_CREATED, getExternalId(),
+                String.valueOf(true));
+    }
+
+    @Override
+    public void setHidden(boolean hidden) {
+        if (hidden != getHidden()) {
+            new ProposalsLog(this, null, "Updating visibility hidden " + getHidden() + " -> " + hidden,
+                    ProposalsLogEventType.PROPOSAL_VISIBILITY, getExternalId(), String.valueOf(hidden));
+        }
+        super.setHidden(hidden);
     }
 
     public int getNumberOfStudentCandidacies() {
@@ -97,10 +120,12 @@ public class ThesisProposal extends ThesisProposal_Base {
 
     public void delete() {
 
-        new ProposalsLog(this, null, "Deleting thesis proposal");
+        new ProposalsLog(this, null, "Deleting thesis proposal", ProposalsLogEventType.PROPOSAL_DELETED, getExternalId(),
+                null);
 
         DomainException.throwWhenDeleteBlocked(getDeletionBlockers());
 
+        getThesisConfigurationSet().forEach(configuration -> VersionCounter.incrementProposals(configuration, this));
         this.getThesisConfigurationSet().clear();
         this.getStudentThesisCandidacySet().clear();
 
@@ -111,6 +136,7 @@ public class ThesisProposal extends ThesisProposal_Base {
         this.getThesisProposalParticipantSet().clear();
 
         this.setThesisProposalsSystem(null);
+        this.setThesisProposalsYear(null);
 
         deleteDomainObject();
     }
@@ -157,9 +183,33 @@ public class ThesisProposal extends ThesisProposal_Base {
     }
 
     public ThesisProposal(ThesisProposal proposal, Set<ThesisProposalsConfiguration> configs) {
+        this(ThesisProposalsSystem.getInstance().generateProposalIdentifier(), proposal, configs);
+    }
+
+    /**
+     * Transposes a proposal into other configurations, copying its participants so that both proposals can be edited
+     * independently.
+     */
+    public ThesisProposal(String identifier, ThesisProposal proposal, Set<ThesisProposalsConfiguration> configs) {
+        this(identifier, proposal.getTitle(), proposal.getObservations(), proposal.getRequirements(), proposal.getGoals(),
+                proposal.getLocalization(), copyParticipants(proposal), configs);
+    }
+
+    private static Set<ThesisProposalParticipant> copyParticipants(ThesisProposal proposal) {
+        Set<ThesisProposalParticipant> participants = new HashSet<ThesisProposalParticipant>();
+
+        for (ThesisProposalParticipant participant : proposal.getThesisProposalParticipantSet()) {
+            if (participant.getUser() != null) {
+                participants.add(new ThesisProposalParticipant(participant.getUser(), participant
+                        .getThesisProposalParticipantType(), participant.getParticipationPercentage()));
+            } else {
+                participants.add(new ThesisProposalParticipant(participant.getExternalUser().getName(), participant
+                        .getExternalUser().getEmail(), participant.getThesisProposalParticipantType(), participant
+                        .getParticipationPercentage()));
+            }
+        }
 
-        new ThesisProposal(proposal.getTitle(), proposal.getObservations(), proposal.getRequirements(), proposal.getGoals(),
-                proposal.getLocalization(), proposal.getThesisProposalParticipantSet(), configs);
+        return participants;
     }
 
 }
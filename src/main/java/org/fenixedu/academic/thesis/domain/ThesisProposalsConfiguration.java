@@ -20,12 +20,16 @@ package org.fenixedu.academic.thesis.domain;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.fenixedu.academic.domain.ExecutionDegree;
 import org.fenixedu.academic.domain.exceptions.DomainException;
+import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.bennu.core.i18n.BundleUtil;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -82,6 +86,7 @@ public class ThesisProposalsConfiguration extends ThesisProposalsConfiguration_B
         setCandidacyPeriod(candidacyPeriod);
         setExecutionDegree(executionDegree);
         setThesisProposalsSystem(ThesisProposalsSystem.getInstance());
+        setThesisProposalsYear(ThesisProposalsYear.getInstance(executionDegree.getExecutionYear()));
         setMaxThesisCandidaciesByStudent(maxThesisCandidaciesByStudent);
         setMaxThesisProposalsByUser(maxThesisProposalsByUser);
         setMinECTS1stCycle(minECTS1stCycle);
@@ -92,12 +97,31 @@ public class ThesisProposalsConfiguration extends ThesisProposalsConfiguration_B
         super();
     }
 
+    public void edit(Interval proposalPeriod, Interval candidacyPeriod, int maxThesisCandidaciesByStudent,
+            int maxThesisProposalsByUser, int minECTS1stCycle, int minECTS2ndCycle) {
+        setProposalPeriod(proposalPeriod);
+        setCandidacyPeriod(candidacyPeriod);
+        setMaxThesisCandidaciesByStudent(maxThesisCandidaciesByStudent);
+        setMaxThesisProposalsByUser(maxThesisProposalsByUser);
+        setMinECTS1stCycle(minECTS1stCycle);
+        setMinECTS2ndCycle(minECTS2ndCycle);
+    }
+
     public void delete() {
 
         DomainException.throwWhenDeleteBlocked(getDeletionBlockers());
 
         this.setExecutionDegree(null);
         this.setThesisProposalsSystem(null);
+        this.setThesisProposalsYear(null);
+        if (getThesisCreationJob() != null) {
+            getThesisCreationJob().delete();
+        }
+        if (getEligibilityPrecomputationJob() != null) {
+            getEligibilityPrecomputationJob().delete();
+        }
+        getProposalsVersionCounterSet().stream().collect(Collectors.toList()).forEach(VersionCounter::delete);
+        getCandidaciesVersionCounterSet().stream().collect(Collectors.toList()).forEach(VersionCounter::delete);
 
         deleteDomainObject();
     }
@@ -108,6 +132,11 @@ public class ThesisProposalsConfiguration extends ThesisProposalsConfiguration_B
         if (getExecutionDegree() != null && !getThesisProposalSet().isEmpty()) {
             blockers.add(BundleUtil.getString("resources.ThesisProposalsResources", "error.configurations.cant.delete"));
         }
+        // The archives are the only copy of the log entries removed by compaction
+        if (!getProposalsLogArchiveSet().isEmpty()) {
+            blockers.add(BundleUtil.getString("resources.ThesisProposalsResources",
+                    "error.configurations.cant.delete.logArchive"));
+        }
     }
 
     public boolean isEquivalent(ThesisProposalsConfiguration configuration) {
@@ -119,6 +148,21 @@ public class ThesisProposalsConfiguration extends ThesisProposalsConfiguration_B
                 && getMinECTS2ndCycle() == configuration.getMinECTS2ndCycle();
     }
 
+    /**
+     * Number of proposals of this configuration each user participates in, as counted against
+     * {@link #getMaxThesisProposalsByUser()}.
+     */
+    public Map<User, Integer> countProposalsByUser() {
+        Map<User, Integer> counts = new HashMap<User, Integer>();
+
+        for (ThesisProposal proposal : getThesisProposalSet()) {
+            proposal.getThesisProposalParticipantSet().stream().map(ThesisProposalParticipant::getUser).filter(Objects::nonNull)
+                    .distinct().forEach(user -> counts.merge(user, 1, Integer::sum));
+        }
+
+        return counts;
+    }
+
     @Override
     public String toString() {
         return getProposalPeriod() + " , " + getCandidacyPeriod() + " w/ " + getMaxThesisProposalsByUser() + " , "
@@ -85,4 +85,12 @@ public class ThesisProposalsSystem extends ThesisProposalsSystem_Base {
         return "" + counter;
     }
 
+    public int reserveProposalIdentifiers(int count) {
+        int first = getProposalsCounter() + 1;
+
+        this.setProposalsCounter(getProposalsCounter() + count);
+
+        return first;
+    }
+
 }
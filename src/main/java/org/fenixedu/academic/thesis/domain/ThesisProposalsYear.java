@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import org.fenixedu.academic.domain.ExecutionYear;
+
+/**
+ * Partition of the configurations, proposals and candidacies of an {@link ExecutionYear}. Archiving a year detaches its
+ * configurations, proposals and any legacy candidacies from the {@link ThesisProposalsSystem} sets, which are the ones
+ * live paths iterate, while keeping them reachable through the partition.
+ */
+public class ThesisProposalsYear extends ThesisProposalsYear_Base {
+
+    private ThesisProposalsYear(ExecutionYear executionYear) {
+        super();
+        setExecutionYear(executionYear);
+        setThesisProposalsSystem(ThesisProposalsSystem.getInstance());
+        setArchived(false);
+    }
+
+    public static ThesisProposalsYear getInstance(ExecutionYear executionYear) {
+        ThesisProposalsYear year = executionYear.getThesisProposalsYear();
+        return year != null ? year : new ThesisProposalsYear(executionYear);
+    }
+
+    public boolean isArchived() {
+        return getArchived();
+    }
+
+    /**
+     * Assigns a configuration, its proposals and their candidacies to this partition, which is needed for objects
+     * created before partitions existed. New candidacies are not assigned when created, since every submission of the
+     * year would add to the same set; they are assigned here, when their configuration is archived.
+     */
+    public void add(ThesisProposalsConfiguration configuration) {
+        configuration.setThesisProposalsYear(this);
+
+        for (ThesisProposal proposal : configuration.getThesisProposalSet()) {
+            proposal.setThesisProposalsYear(this);
+            proposal.getStudentThesisCandidacySet().forEach(candidacy -> candidacy.setThesisProposalsYear(this));
+        }
+    }
+
+    public void archive(ThesisProposalsConfiguration configuration) {
+        add(configuration);
+
+        configuration.setThesisProposalsSystem(null);
+        for (ThesisProposal proposal : configuration.getThesisProposalSet()) {
+            proposal.setThesisProposalsSystem(null);
+            proposal.getStudentThesisCandidacySet().forEach(candidacy -> candidacy.setThesisProposalsSystem(null));
+        }
+    }
+
+    /**
+     * Attaches a configuration and its proposals back to the {@link ThesisProposalsSystem}. Candidacies are left out, as
+     * they are no longer kept in the system set.
+     */
+
+    public void restore(ThesisProposalsConfiguration configuration) {
+        ThesisProposalsSystem system = ThesisProposalsSystem.getInstance();
+
+        configuration.setThesisProposalsSystem(system);
+        configuration.getThesisProposalSet().forEach(proposal -> proposal.setThesisProposalsSystem(system));
+    }
+
+}
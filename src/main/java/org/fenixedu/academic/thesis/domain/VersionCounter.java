@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.fenixedu.academic.domain.student.Registration;
+
+import pt.ist.fenixframework.DomainObject;
+
+/**
+ * Persisted count of the writes made to the proposals or to the candidacies of a configuration, or to the candidacies of
+ * a registration. Caches and conditional requests compare it with the count they were computed from, so that a write
+ * made on any node is seen by all of them. The counters of a configuration are split in {@link #SHARDS} shards, created
+ * along with the first one, and each write increments the shard of the object it changes, so concurrent candidacy
+ * submissions seldom write to the same counter. The count is the sum of the shards.
+ */
+public class VersionCounter extends VersionCounter_Base {
+
+    public static final int SHARDS = 16;
+
+    private VersionCounter(int index) {
+        super();
+        setIndex(index);
+        setValue(0);
+    }
+
+    public static long getProposalsVersion(ThesisProposalsConfiguration configuration) {
+        return sum(configuration.getProposalsVersionCounterSet());
+    }
+
+    public static long getCandidaciesVersion(ThesisProposalsConfiguration configuration) {
+        return sum(configuration.getCandidaciesVersionCounterSet());
+    }
+
+    public static long getCandidaciesVersion(Registration registration) {
+        VersionCounter counter = registration.getCandidaciesVersionCounter();
+        return counter != null ? counter.getValue() : 0;
+    }
+
+    public static void incrementProposals(ThesisProposalsConfiguration configuration, DomainObject changed) {
+        increment(configuration.getProposalsVersionCounterSet(), configuration::addProposalsVersionCounter, changed);
+    }
+
+    public static void incrementCandidacies(ThesisProposalsConfiguration configuration, DomainObject changed) {
+        increment(configuration.getCandidaciesVersionCounterSet(), configuration::addCandidaciesVersionCounter, changed);
+    }
+
+    public static void incrementCandidacies(Registration registration) {
+        VersionCounter counter = registration.getCandidaciesVersionCounter();
+        if (counter == null) {
+            counter = new VersionCounter(0);
+            counter.setRegistration(registration);
+        }
+        counter.increment();
+    }
+
+    private static void increment(Set<VersionCounter> shards, Consumer<VersionCounter> add, DomainObject changed) {
+        if (shards.isEmpty()) {
+            for (int index = 0; index < SHARDS; index++) {
+                add.accept(new VersionCounter(index));
+            }
+        }
+
+        int index = Math.floorMod(changed.getExternalId().hashCode(), SHARDS);
+        shards.stream().filter(shard -> shard.getIndex() == index).findAny().get().increment();
+    }
+
+    private static long sum(Set<VersionCounter> shards) {
+        return shards.stream().mapToLong(VersionCounter::getValue).sum();
+    }
+
+    private void increment() {
+        setValue(getValue() + 1);
+    }
+
+    public void delete() {
+        setProposalsConfiguration(null);
+        setCandidaciesConfiguration(null);
+        setRegistration(null);
+        deleteDomainObject();
+    }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.ProposalsLogArchive;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsYear;
+import org.fenixedu.academic.thesis.ui.service.ProposalsLogService;
+import org.fenixedu.bennu.scheduler.CronTask;
+import org.fenixedu.bennu.scheduler.annotation.Task;
+import org.fenixedu.commons.configuration.ConfigurationInvocationHandler;
+import org.fenixedu.commons.configuration.ConfigurationManager;
+import org.fenixedu.commons.configuration.ConfigurationProperty;
+import org.joda.time.DateTime;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compacts the {@link ProposalsLog} of the configurations whose candidacy period ended more than the retention period
+ * ago. The entries of each candidacy are collapsed into a single summary entry, and the raw entries are moved into
+ * {@link ProposalsLogArchive} files of the configuration. Each run compacts a bounded number of proposals, in the task's
+ * transaction, and the next runs carry on from the proposals that still have entries to compact.
+ */
+@Task(englishTitle = "Compact the thesis proposals log of closed configurations")
+public class CompactProposalsLogTask extends CronTask {
+
+    private static final int CHUNK_SIZE = 50;
+
+    private static final int PROPOSALS_PER_RUN = 1000;
+
+    private static final String ARCHIVE_PREFIX = "proposals-log-";
+    private static final String ARCHIVE_SUFFIX = ".csv";
+
+    @ConfigurationManager(description = "FenixEdu Academic Thesis Configuration")
+    public interface ConfigurationProperties {
+        @ConfigurationProperty(key = "thesis.proposals.log.retention.days", defaultValue = "180",
+                description = "Days after the end of a candidacy period before the log of its configuration is compacted")
+        public Integer logRetentionDays();
+    }
+
+    @Override
+    public void runTask() throws Exception {
+        int retentionDays = ConfigurationInvocationHandler.getConfiguration(ConfigurationProperties.class).logRetentionDays();
+        int remaining = PROPOSALS_PER_RUN;
+
+        for (ThesisProposalsConfiguration configuration : getClosedConfigurations(new DateTime().minusDays(retentionDays))) {
+            List<ThesisProposal> pending =
+                    configuration.getThesisProposalSet().stream().filter(CompactProposalsLogTask::hasPendingEntries)
+                            .collect(Collectors.toList());
+            List<ThesisProposal> batch = pending.subList(0, Math.min(remaining, pending.size()));
+
+            int compacted = 0;
+            for (List<ThesisProposal> chunk : Lists.partition(batch, CHUNK_SIZE)) {
+                compacted += compact(configuration, chunk);
+            }
+            remaining -= batch.size();
+
+            if (batch.size() < pending.size()) {
+                taskLog("Compacted %d log entries of configuration %s, %d proposals left for the next run%n", compacted,
+                        configuration.getExternalId(), pending.size() - batch.size());
+                return;
+            }
+
+            configuration.setLogsCompactedAt(new DateTime());
+            taskLog("Compacted %d log entries of configuration %s%n", compacted, configuration.getExternalId());
+        }
+    }
+
+    private List<ThesisProposalsConfiguration> getClosedConfigurations(DateTime threshold) {
+        Set<ThesisProposalsConfiguration> configurations =
+                new HashSet<ThesisProposalsConfiguration>(ThesisProposalsSystem.getInstance()
+                        .getThesisProposalsConfigurationSet());
+        for (ThesisProposalsYear year : ThesisProposalsSystem.getInstance().getThesisProposalsYearSet()) {
+            configurations.addAll(year.getThesisProposalsConfigurationSet());
+        }
+
+        return configurations.stream()
+                .filter(configuration -> configuration.getLogsCompactedAt() == null)
+                .filter(configuration -> configuration.getCandidacyPeriod().getEnd().isBefore(threshold))
+                .collect(Collectors.toList());
+    }
+
+    // A proposal shared by several configurations is only compacted once
+    private static boolean hasPendingEntries(ThesisProposal proposal) {
+        return proposal.getStudentThesisCandidacySet().stream().anyMatch(candidacy -> getPendingEntries(candidacy).size() > 1);
+    }
+
+    private static List<ProposalsLog> getPendingEntries(StudentThesisCandidacy candidacy) {
+        return candidacy.getProposalsLogSet().stream().filter(entry -> !entry.isCompacted())
+                .sorted(Comparator.comparing(ProposalsLog::getTimestamp)).collect(Collectors.toList());
+    }
+
+    private int compact(ThesisProposalsConfiguration configuration, List<ThesisProposal> proposals) {
+        StringBuilder archive = new StringBuilder(ProposalsLogService.CSV_HEADER);
+        int compacted = 0;
+
+        for (ThesisProposal proposal : proposals) {
+            for (StudentThesisCandidacy candidacy : proposal.getStudentThesisCandidacySet()) {
+                List<ProposalsLog> entries = getPendingEntries(candidacy);
+
+                if (entries.size() < 2) {
+                    continue;
+                }
+
+                entries.forEach(entry -> archive.append(ProposalsLogService.toCsv(entry)));
+                ProposalsLog.compact(candidacy, new ArrayList<ProposalsLog>(entries));
+                compacted += entries.size();
+            }
+        }
+
+        if (compacted > 0) {
+            String filename =
+                    getArchiveFilename(configuration.getExternalId(), getNextPart(configuration.getExternalId(), configuration
+                            .getProposalsLogArchiveSet().stream().map(ProposalsLogArchive::getFilename)
+                            .collect(Collectors.toList())));
+            new ProposalsLogArchive(configuration, filename, archive.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        return compacted;
+    }
+
+    static String getArchiveFilename(String configurationId, int part) {
+        return ARCHIVE_PREFIX + configurationId + "-" + part + ARCHIVE_SUFFIX;
+    }
+
+    /**
+     * The part following the highest one among the archives of a configuration, so parts written by later runs never
+     * reuse the name of an existing archive.
+     */
+    static int getNextPart(String configurationId, Collection<String> filenames) {
+        String prefix = ARCHIVE_PREFIX + configurationId + "-";
+        int last = 0;
+
+        for (String filename : filenames) {
+            if (filename.startsWith(prefix) && filename.endsWith(ARCHIVE_SUFFIX)) {
+                try {
+                    last = Math.max(last, Integer.parseInt(filename.substring(prefix.length(),
+                            filename.length() - ARCHIVE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not a part written by this task
+                }
+            }
+        }
+
+        return last + 1;
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.task;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.bennu.scheduler.CronTask;
+import org.fenixedu.bennu.scheduler.annotation.Task;
+
+/**
+ * Removes from the {@link ThesisProposalsSystem} the candidacies created while every candidacy was added to its set. New
+ * candidacies are no longer added to it, and nothing reads it, so the set only grows the write set of the candidacies
+ * still in it. Each run detaches a batch, in the task's transaction, until the set is empty.
+ */
+@Task(englishTitle = "Detach legacy thesis candidacies from the thesis proposals system")
+public class DetachLegacyCandidaciesTask extends CronTask {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void runTask() throws Exception {
+        Set<StudentThesisCandidacy> legacy = ThesisProposalsSystem.getInstance().getStudentThesisCandidacySet();
+
+        List<StudentThesisCandidacy> batch = legacy.stream().limit(BATCH_SIZE).collect(Collectors.toList());
+        batch.forEach(candidacy -> candidacy.setThesisProposalsSystem(null));
+
+        taskLog("Detached %d candidacies, %d left%n", batch.size(), legacy.size());
+    }
+
+}
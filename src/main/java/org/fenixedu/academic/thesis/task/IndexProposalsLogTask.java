@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.task;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.ProposalsLogBucket;
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.scheduler.CronTask;
+import org.fenixedu.bennu.scheduler.annotation.Task;
+import org.joda.time.DateTime;
+
+/**
+ * Indexes the {@link ProposalsLog} entries written before entries were linked to a {@link ProposalsLogBucket} and to the
+ * candidacy they describe, which until then are only found by author. Each run indexes a batch, in the
+ * task's transaction, until every entry is indexed.
+ */
+@Task(englishTitle = "Index thesis proposals log entries written before the log was indexed")
+public class IndexProposalsLogTask extends CronTask {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void runTask() throws Exception {
+        List<ProposalsLog> batch =
+                Bennu.getInstance().getUserSet().stream().flatMap(user -> user.getLoggerSet().stream())
+                        .filter(entry -> !entry.isIndexed()).limit(BATCH_SIZE).collect(Collectors.toList());
+
+        Map<DateTime, ProposalsLogBucket> buckets = new HashMap<DateTime, ProposalsLogBucket>();
+        for (ProposalsLog entry : batch) {
+            entry.index(buckets.computeIfAbsent(entry.getTimestamp().hourOfDay().roundFloorCopy(),
+                    ProposalsLogBucket::getInstance));
+        }
+
+        taskLog("Indexed %d entries%n", batch.size());
+    }
+
+}
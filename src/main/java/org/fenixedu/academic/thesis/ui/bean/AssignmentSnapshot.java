@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+
+/**
+ * Read-only copy of the proposals and candidacies of a configuration. Proposals, registrations and candidacies are
+ * addressed by their position in the snapshot, so simulations only need to copy the acceptance flags.
+ */
+public class AssignmentSnapshot {
+
+    private final String[] proposalExternalIds;
+    private final String[] proposalIdentifiers;
+    private final String[] registrationExternalIds;
+    private final String[] studentNumbers;
+    private final String[] candidacyExternalIds;
+    private final int[] candidacyProposal;
+    private final int[] candidacyRegistration;
+    private final int[] candidacyPreference;
+    private final boolean[] accepted;
+    private final int[][] proposalCandidacies;
+    private final int[][] registrationCandidacies;
+    private final Map<String, Integer> candidacyIndex;
+
+    public AssignmentSnapshot(ThesisProposalsConfiguration configuration) {
+        List<ThesisProposal> proposals = new ArrayList<ThesisProposal>(configuration.getThesisProposalSet());
+        List<StudentThesisCandidacy> candidacies = new ArrayList<StudentThesisCandidacy>();
+        Map<Registration, Integer> registrationIndex = new HashMap<Registration, Integer>();
+
+        proposalExternalIds = new String[proposals.size()];
+        proposalIdentifiers = new String[proposals.size()];
+        proposalCandidacies = new int[proposals.size()][];
+
+        for (int p = 0; p < proposals.size(); p++) {
+            ThesisProposal proposal = proposals.get(p);
+            proposalExternalIds[p] = proposal.getExternalId();
+            proposalIdentifiers[p] = proposal.getIdentifier();
+            proposalCandidacies[p] = new int[proposal.getStudentThesisCandidacySet().size()];
+
+            int i = 0;
+            for (StudentThesisCandidacy candidacy : proposal.getStudentThesisCandidacySet()) {
+                proposalCandidacies[p][i++] = candidacies.size();
+                candidacies.add(candidacy);
+                registrationIndex.putIfAbsent(candidacy.getRegistration(), registrationIndex.size());
+            }
+        }
+
+        candidacyExternalIds = new String[candidacies.size()];
+        candidacyProposal = new int[candidacies.size()];
+        candidacyRegistration = new int[candidacies.size()];
+        candidacyPreference = new int[candidacies.size()];
+        accepted = new boolean[candidacies.size()];
+        candidacyIndex = new HashMap<String, Integer>();
+
+        registrationExternalIds = new String[registrationIndex.size()];
+        studentNumbers = new String[registrationIndex.size()];
+        int[] registrationCandidaciesCount = new int[registrationIndex.size()];
+
+        for (Map.Entry<Registration, Integer> entry : registrationIndex.entrySet()) {
+            registrationExternalIds[entry.getValue()] = entry.getKey().getExternalId();
+            studentNumbers[entry.getValue()] = String.valueOf(entry.getKey().getStudent().getNumber());
+        }
+
+        for (int p = 0; p < proposalCandidacies.length; p++) {
+            for (int c : proposalCandidacies[p]) {
+                StudentThesisCandidacy candidacy = candidacies.get(c);
+                candidacyExternalIds[c] = candidacy.getExternalId();
+                candidacyProposal[c] = p;
+                candidacyRegistration[c] = registrationIndex.get(candidacy.getRegistration());
+                candidacyPreference[c] = candidacy.getPreferenceNumber();
+                accepted[c] = candidacy.getAcceptedByAdvisor();
+                candidacyIndex.put(candidacy.getExternalId(), c);
+                registrationCandidaciesCount[candidacyRegistration[c]]++;
+            }
+        }
+
+        registrationCandidacies = new int[registrationExternalIds.length][];
+        for (int r = 0; r < registrationCandidacies.length; r++) {
+            registrationCandidacies[r] = new int[registrationCandidaciesCount[r]];
+            registrationCandidaciesCount[r] = 0;
+        }
+        for (int c = 0; c < candidacyRegistration.length; c++) {
+            int r = candidacyRegistration[c];
+            registrationCandidacies[r][registrationCandidaciesCount[r]++] = c;
+        }
+    }
+
+    public int getProposalsCount() {
+        return proposalExternalIds.length;
+    }
+
+    public int getRegistrationsCount() {
+        return registrationExternalIds.length;
+    }
+
+    public String getProposalExternalId(int proposal) {
+        return proposalExternalIds[proposal];
+    }
+
+    public String getProposalIdentifier(int proposal) {
+        return proposalIdentifiers[proposal];
+    }
+
+    public String getRegistrationExternalId(int registration) {
+        return registrationExternalIds[registration];
+    }
+
+    public String getStudentNumber(int registration) {
+        return studentNumbers[registration];
+    }
+
+    public String getCandidacyExternalId(int candidacy) {
+        return candidacyExternalIds[candidacy];
+    }
+
+    public int getProposal(int candidacy) {
+        return candidacyProposal[candidacy];
+    }
+
+    public int getRegistration(int candidacy) {
+        return candidacyRegistration[candidacy];
+    }
+
+    public int getPreferenceNumber(int candidacy) {
+        return candidacyPreference[candidacy];
+    }
+
+    public int[] getProposalCandidacies(int proposal) {
+        return proposalCandidacies[proposal];
+    }
+
+    public int[] getRegistrationCandidacies(int registration) {
+        return registrationCandidacies[registration];
+    }
+
+    public Integer getCandidacy(String externalId) {
+        return candidacyIndex.get(externalId);
+    }
+
+    public boolean[] copyAccepted() {
+        return accepted.clone();
+    }
+
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.ProposalsLogEventType;
+import org.joda.time.DateTime;
+
+/**
+ * Replayable history of the proposals and candidacies of a configuration, built from the structured events of the
+ * {@link ProposalsLog}. A copy of the state is kept every {@link #CHECKPOINT_INTERVAL} events, so the state at a given
+ * moment is the nearest previous checkpoint plus the replay of at most that many events.
+ */
+public class AssignmentTimeline {
+
+    public static final int CHECKPOINT_INTERVAL = 256;
+
+    private final Set<String> proposals;
+    private final List<Event> events = new ArrayList<Event>();
+    private final List<State> checkpoints = new ArrayList<State>();
+    private final State head = new State();
+    private DateTime loadedUntil;
+
+    public AssignmentTimeline(Set<String> proposals) {
+        this.proposals = proposals;
+        this.checkpoints.add(head.copy());
+    }
+
+    public Set<String> getProposals() {
+        return proposals;
+    }
+
+    public DateTime getLoadedUntil() {
+        return loadedUntil;
+    }
+
+    public Event getLastEvent() {
+        return events.isEmpty() ? null : events.get(events.size() - 1);
+    }
+
+    public boolean isRelevant(ProposalsLog entry) {
+        return entry.getEventType() == ProposalsLogEventType.PREFERENCES_REORDERED || proposals.contains(entry.getEventParent());
+    }
+
+    /**
+     * Appends events, oldest first, that happened after every event already in the timeline.
+     */
+    public void append(List<Event> newEvents, DateTime loadedUntil) {
+        for (Event event : newEvents) {
+            head.apply(event);
+            events.add(event);
+            if (events.size() % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.add(head.copy());
+            }
+        }
+        this.loadedUntil = loadedUntil;
+    }
+
+    public State getStateAt(DateTime timestamp) {
+        int count = countEventsUntil(timestamp);
+        State state = checkpoints.get(count / CHECKPOINT_INTERVAL).copy();
+
+        for (Event event : events.subList(count - count % CHECKPOINT_INTERVAL, count)) {
+            state.apply(event);
+        }
+
+        state.setEventsReplayed(count);
+        return state;
+    }
+
+    private int countEventsUntil(DateTime timestamp) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).getTimestamp().isAfter(timestamp)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    public static class Event {
+
+        private final String externalId;
+        private final DateTime timestamp;
+        private final ProposalsLogEventType type;
+        private final String subject;
+        private final String parent;
+        private final String value;
+
+        public Event(ProposalsLog entry) {
+            this(entry.getExternalId(), entry.getTimestamp(), entry.getEventType(), entry.getEventSubject(), entry
+                    .getEventParent(), entry.getEventValue());
+        }
+
+        public Event(String externalId, DateTime timestamp, ProposalsLogEventType type, String subject, String parent,
+                String value) {
+            this.externalId = externalId;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.subject = subject;
+            this.parent = parent;
+            this.value = value;
+        }
+
+        public String getExternalId() {
+            return externalId;
+        }
+
+        public DateTime getTimestamp() {
+            return timestamp;
+        }
+
+        public ProposalsLogEventType getType() {
+            return type;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getParent() {
+            return parent;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static class Candidacy {
+
+        private final String proposal;
+        private final String registration;
+        private final int preferenceNumber;
+        private final boolean accepted;
+
+        private Candidacy(String proposal, String registration, int preferenceNumber, boolean accepted) {
+            this.proposal = proposal;
+            this.registration = registration;
+            this.preferenceNumber = preferenceNumber;
+            this.accepted = accepted;
+        }
+
+        public String getProposal() {
+            return proposal;
+        }
+
+        public String getRegistration() {
+            return registration;
+        }
+
+        public int getPreferenceNumber() {
+            return preferenceNumber;
+        }
+
+        public boolean isAccepted() {
+            return accepted;
+        }
+    }
+
+    public static class State {
+
+        private final Map<String, Boolean> hiddenByProposal;
+        private final Map<String, Candidacy> candidacies;
+        private int eventsReplayed;
+
+        private State() {
+            this(new HashMap<String, Boolean>(), new HashMap<String, Candidacy>());
+        }
+
+        private State(Map<String, Boolean> hiddenByProposal, Map<String, Candidacy> candidacies) {
+            this.hiddenByProposal = hiddenByProposal;
+            this.candidacies = candidacies;
+        }
+
+        private State copy() {
+            return new State(new HashMap<String, Boolean>(hiddenByProposal), new HashMap<String, Candidacy>(candidacies));
+        }
+
+        private void apply(Event event) {
+            Candidacy candidacy = candidacies.get(event.getSubject());
+            String[] values = event.getValue() != null ? event.getValue().split(" ") : new String[0];
+
+            switch (event.getType()) {
+            case PROPOSAL_CREATED:
+            case PROPOSAL_VISIBILITY:
+                hiddenByProposal.put(event.getSubject(), Boolean.valueOf(event.getValue()));
+                break;
+            case PROPOSAL_DELETED:
+                hiddenByProposal.remove(event.getSubject());
+                break;
+            case CANDIDACY_CREATED:
+                candidacies.put(event.getSubject(),
+                        new Candidacy(event.getParent(), values[0], Integer.parseInt(values[1]), false));
+                break;
+            case CANDIDACY_COMPACTED:
+                candidacies.put(event.getSubject(), new Candidacy(event.getParent(), values[0], Integer.parseInt(values[1]),
+                        Boolean.valueOf(values[2])));
+                break;
+            case CANDIDACY_PREFERENCE:
+                if (candidacy != null) {
+                    candidacies.put(event.getSubject(), new Candidacy(candidacy.getProposal(), candidacy.getRegistration(),
+                            Integer.parseInt(event.getValue()), candidacy.isAccepted()));
+                }
+                break;
+            case CANDIDACY_ACCEPTANCE:
+                if (candidacy != null) {
+                    candidacies.put(event.getSubject(), new Candidacy(candidacy.getProposal(), candidacy.getRegistration(),
+                            candidacy.getPreferenceNumber(), Boolean.valueOf(event.getValue())));
+                }
+                break;
+            case CANDIDACY_DELETED:
+                candidacies.remove(event.getSubject());
+                break;
+            case PREFERENCES_REORDERED:
+                for (String pair : event.getValue().split(",")) {
+                    String candidacyId = pair.substring(0, pair.indexOf('='));
+                    Candidacy reordered = candidacies.get(candidacyId);
+                    if (reordered != null) {
+                        candidacies.put(candidacyId, new Candidacy(reordered.getProposal(), reordered.getRegistration(),
+                                Integer.parseInt(pair.substring(pair.indexOf('=') + 1)), reordered.isAccepted()));
+                    }
+                }
+                break;
+            }
+        }
+
+        public Map<String, Boolean> getHiddenByProposal() {
+            return Collections.unmodifiableMap(hiddenByProposal);
+        }
+
+        public Map<String, Candidacy> getCandidacies() {
+            return Collections.unmodifiableMap(candidacies);
+        }
+
+        public int getEventsReplayed() {
+            return eventsReplayed;
+        }
+
+        private void setEventsReplayed(int eventsReplayed) {
+            this.eventsReplayed = eventsReplayed;
+        }
+    }
+
+}
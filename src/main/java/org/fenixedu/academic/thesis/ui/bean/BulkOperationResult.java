@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Outcome of a bulk operation over a selection of proposals, listing the identifiers of the proposals that were
+ * changed, that were already in the requested state, and that could not be changed.
+ */
+public class BulkOperationResult {
+
+    private final String action;
+    private final List<String> changed = new ArrayList<String>();
+    private final List<String> unchanged = new ArrayList<String>();
+    private final List<String> failed = new ArrayList<String>();
+
+    public BulkOperationResult(String action) {
+        this.action = action;
+    }
+
+    public void addChanged(String identifier) {
+        changed.add(identifier);
+    }
+
+    public void addUnchanged(String identifier) {
+        unchanged.add(identifier);
+    }
+
+    public void addFailed(String identifier) {
+        failed.add(identifier);
+    }
+
+    public void addAll(BulkOperationResult result) {
+        changed.addAll(result.changed);
+        unchanged.addAll(result.unchanged);
+        failed.addAll(result.failed);
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("action", action);
+        json.add("changed", toJson(changed));
+        json.add("unchanged", toJson(unchanged));
+        json.add("failed", toJson(failed));
+        return json;
+    }
+
+    private static JsonArray toJson(List<String> identifiers) {
+        JsonArray array = new JsonArray();
+        identifiers.forEach(identifier -> array.add(new JsonPrimitive(identifier)));
+        return array;
+    }
+
+}
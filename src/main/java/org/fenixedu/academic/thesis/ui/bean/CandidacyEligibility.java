@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.Objects;
+
+import org.fenixedu.academic.domain.StudentCurricularPlan;
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.CandidacyEligibilitySnapshot;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.exception.Unsuficient1stCycleCreditsException;
+import org.fenixedu.academic.thesis.ui.exception.Unsuficient2ndCycleCreditsException;
+import org.joda.time.DateTime;
+
+/**
+ * Approved ECTS credits of each cycle of a registration, as they were when the snapshot was taken. The thresholds are
+ * read from the configuration on every check, so a snapshot serves all the configurations of its registration.
+ */
+public class CandidacyEligibility {
+
+    private final String studentCurricularPlanId;
+    private final Double firstCycleCredits;
+    private final Double secondCycleCredits;
+    private final DateTime computedAt;
+
+    public CandidacyEligibility(Registration registration) {
+        StudentCurricularPlan studentCurricularPlan = registration.getActiveStudentCurricularPlan();
+
+        this.studentCurricularPlanId = studentCurricularPlan != null ? studentCurricularPlan.getExternalId() : null;
+        this.firstCycleCredits =
+                studentCurricularPlan != null && studentCurricularPlan.getFirstCycle() != null ? studentCurricularPlan
+                        .getFirstCycle().getAprovedEctsCredits() : null;
+        this.secondCycleCredits =
+                studentCurricularPlan != null && studentCurricularPlan.getSecondCycle() != null ? studentCurricularPlan
+                        .getSecondCycle().getAprovedEctsCredits() : null;
+        this.computedAt = new DateTime();
+    }
+
+    public CandidacyEligibility(String studentCurricularPlanId, Double firstCycleCredits, Double secondCycleCredits) {
+        this(studentCurricularPlanId, firstCycleCredits, secondCycleCredits, new DateTime());
+    }
+
+    public CandidacyEligibility(String studentCurricularPlanId, Double firstCycleCredits, Double secondCycleCredits,
+            DateTime computedAt) {
+        this.studentCurricularPlanId = studentCurricularPlanId;
+        this.firstCycleCredits = firstCycleCredits;
+        this.secondCycleCredits = secondCycleCredits;
+        this.computedAt = computedAt;
+    }
+
+    public CandidacyEligibility(CandidacyEligibilitySnapshot snapshot) {
+        this(snapshot.getStudentCurricularPlanId(), snapshot.getFirstCycleCredits(), snapshot.getSecondCycleCredits(),
+                snapshot.getComputedAt());
+    }
+
+    public String getStudentCurricularPlanId() {
+        return studentCurricularPlanId;
+    }
+
+    public Double getFirstCycleCredits() {
+        return firstCycleCredits;
+    }
+
+    public Double getSecondCycleCredits() {
+        return secondCycleCredits;
+    }
+
+    public DateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * Whether the snapshot was taken over the current curricular plan of the registration.
+     */
+    public boolean isCurrent(Registration registration) {
+        StudentCurricularPlan studentCurricularPlan = registration.getActiveStudentCurricularPlan();
+        return Objects.equals(studentCurricularPlanId, studentCurricularPlan != null ? studentCurricularPlan.getExternalId()
+                : null);
+    }
+
+    public void check(ThesisProposalsConfiguration configuration) throws ThesisProposalException {
+        check(configuration.getMinECTS1stCycle(), configuration.getMinECTS2ndCycle());
+    }
+
+    public void check(int minECTS1stCycle, int minECTS2ndCycle) throws ThesisProposalException {
+        if (firstCycleCredits != null && minECTS1stCycle > firstCycleCredits) {
+            throw new Unsuficient1stCycleCreditsException();
+        }
+
+        if (secondCycleCredits == null || minECTS2ndCycle > secondCycleCredits) {
+            throw new Unsuficient2ndCycleCreditsException();
+        }
+    }
+
+    public boolean isEligible(ThesisProposalsConfiguration configuration) {
+        return isEligible(configuration.getMinECTS1stCycle(), configuration.getMinECTS2ndCycle());
+    }
+
+    public boolean isEligible(int minECTS1stCycle, int minECTS2ndCycle) {
+        try {
+            check(minECTS1stCycle, minECTS2ndCycle);
+            return true;
+        } catch (ThesisProposalException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonObject;
+
+public class CandidacySubmissionMetricsBean {
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+
+    public void incrementSubmitted() {
+        submitted.incrementAndGet();
+    }
+
+    public void incrementCreated() {
+        created.incrementAndGet();
+    }
+
+    public void incrementRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * A write transaction re-executed after conflicting with a concurrent one.
+     */
+    public void incrementRetries() {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * A submission given up after its write transaction conflicted on every attempt.
+     */
+    public void incrementConflicts() {
+        conflicts.incrementAndGet();
+    }
+
+    /**
+     * Time spent in the write transaction of a submission, including the retries caused by conflicting submissions.
+     */
+    public void addWriteTime(long nanos) {
+        writes.incrementAndGet();
+        writeNanos.addAndGet(nanos);
+        maxWriteNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public JsonObject toJson() {
+        long count = writes.get();
+
+        JsonObject json = new JsonObject();
+        json.addProperty("submitted", submitted.get());
+        json.addProperty("created", created.get());
+        json.addProperty("rejected", rejected.get());
+        json.addProperty("retries", retries.get());
+        json.addProperty("conflicts", conflicts.get());
+        json.addProperty("averageWriteMillis", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(writeNanos.get() / count));
+        json.addProperty("maxWriteMillis", TimeUnit.NANOSECONDS.toMillis(maxWriteNanos.get()));
+        return json;
+    }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Counters of the proposals and candidacies of a configuration. The contribution of each proposal and candidacy is kept,
+ * so that putting the new state of one of them only updates the counters by the difference. Advisors are identified by
+ * the external id of their user, or of their external user, and shown with the name they were last put with.
+ */
+public class ConfigurationStatistics {
+
+    private static final class ProposalState {
+        private final boolean visible;
+        private final Set<String> advisors;
+
+        private ProposalState(boolean visible, Set<String> advisors) {
+            this.visible = visible;
+            this.advisors = advisors;
+        }
+    }
+
+    private static final class CandidacyState {
+        private final int preferenceNumber;
+        private final boolean accepted;
+
+        private CandidacyState(int preferenceNumber, boolean accepted) {
+            this.preferenceNumber = preferenceNumber;
+            this.accepted = accepted;
+        }
+    }
+
+    private final Map<String, ProposalState> proposals = new HashMap<String, ProposalState>();
+    private final Map<String, CandidacyState> candidacies = new HashMap<String, CandidacyState>();
+
+    private int visibleProposals;
+    private int acceptedCandidacies;
+    private final Map<String, Integer> proposalsByAdvisor = new TreeMap<String, Integer>();
+    private final Map<String, String> advisorNames = new HashMap<String, String>();
+    private final Map<Integer, Integer> candidaciesByPreference = new TreeMap<Integer, Integer>();
+
+    /**
+     * @param advisors names of the advisors of the proposal, by advisor id
+     */
+    public synchronized void putProposal(String proposalId, boolean visible, Map<String, String> advisors) {
+        removeProposal(proposalId);
+
+        proposals.put(proposalId, new ProposalState(visible, new HashSet<String>(advisors.keySet())));
+        visibleProposals += visible ? 1 : 0;
+        advisors.forEach((advisor, name) -> {
+            add(proposalsByAdvisor, advisor, 1);
+            advisorNames.put(advisor, name);
+        });
+    }
+
+    public synchronized void removeProposal(String proposalId) {
+        ProposalState state = proposals.remove(proposalId);
+
+        if (state != null) {
+            visibleProposals -= state.visible ? 1 : 0;
+            state.advisors.forEach(advisor -> {
+                if (add(proposalsByAdvisor, advisor, -1) == 0) {
+                    advisorNames.remove(advisor);
+                }
+            });
+        }
+    }
+
+    public synchronized void putCandidacy(String candidacyId, int preferenceNumber, boolean accepted) {
+        removeCandidacy(candidacyId);
+
+        candidacies.put(candidacyId, new CandidacyState(preferenceNumber, accepted));
+        acceptedCandidacies += accepted ? 1 : 0;
+        add(candidaciesByPreference, preferenceNumber, 1);
+    }
+
+    public synchronized void removeCandidacy(String candidacyId) {
+        CandidacyState state = candidacies.remove(candidacyId);
+
+        if (state != null) {
+            acceptedCandidacies -= state.accepted ? 1 : 0;
+            add(candidaciesByPreference, state.preferenceNumber, -1);
+        }
+    }
+
+    private static <K> int add(Map<K, Integer> counts, K key, int delta) {
+        int count = counts.getOrDefault(key, 0) + delta;
+        if (count == 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count);
+        }
+        return count;
+    }
+
+    public synchronized int getProposals() {
+        return proposals.size();
+    }
+
+    public synchronized int getVisibleProposals() {
+        return visibleProposals;
+    }
+
+    public synchronized int getCandidacies() {
+        return candidacies.size();
+    }
+
+    public synchronized int getAcceptedCandidacies() {
+        return acceptedCandidacies;
+    }
+
+    public synchronized double getAcceptanceRate() {
+        return candidacies.isEmpty() ? 0 : (double) acceptedCandidacies / candidacies.size();
+    }
+
+    public synchronized String getAdvisorName(String advisor) {
+        return advisorNames.get(advisor);
+    }
+
+    public synchronized Map<String, Integer> getProposalsByAdvisor() {
+        return Collections.unmodifiableMap(new TreeMap<String, Integer>(proposalsByAdvisor));
+    }
+
+    public synchronized Map<Integer, Integer> getCandidaciesByPreference() {
+        return Collections.unmodifiableMap(new TreeMap<Integer, Integer>(candidaciesByPreference));
+    }
+
+    public synchronized JsonObject toJson() {
+        JsonArray byAdvisor = new JsonArray();
+        proposalsByAdvisor.forEach((advisor, count) -> {
+            JsonObject advisorJson = new JsonObject();
+            advisorJson.addProperty("advisor", advisor);
+            advisorJson.addProperty("name", advisorNames.get(advisor));
+            advisorJson.addProperty("proposals", count);
+            byAdvisor.add(advisorJson);
+        });
+
+        JsonObject byPreference = new JsonObject();
+        candidaciesByPreference.forEach((preference, count) -> byPreference.addProperty(String.valueOf(preference), count));
+
+        JsonObject json = new JsonObject();
+        json.addProperty("proposals", getProposals());
+        json.addProperty("visibleProposals", getVisibleProposals());
+        json.addProperty("candidacies", getCandidacies());
+        json.addProperty("acceptedCandidacies", getAcceptedCandidacies());
+        json.addProperty("acceptanceRate", getAcceptanceRate());
+        json.add("proposalsByAdvisor", byAdvisor);
+        json.add("candidaciesByPreference", byPreference);
+        return json;
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonObject;
+
+public class EligibilityPrecomputationBean {
+
+    public enum State {
+        RUNNING, DONE, FAILED, STALLED
+    }
+
+    private State state = State.RUNNING;
+    private final int total;
+    private final Map<String, AtomicInteger> eligibleByDegree = new HashMap<String, AtomicInteger>();
+    private final Map<String, AtomicInteger> ineligibleByDegree = new HashMap<String, AtomicInteger>();
+
+    public EligibilityPrecomputationBean(int total) {
+        this.total = total;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return getEligible() + getIneligible();
+    }
+
+    public int getEligible() {
+        return eligibleByDegree.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public int getIneligible() {
+        return ineligibleByDegree.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public void increment(String degree, boolean eligible) {
+        Map<String, AtomicInteger> counts = eligible ? eligibleByDegree : ineligibleByDegree;
+        counts.computeIfAbsent(degree, d -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public JsonObject toJson() {
+        Set<String> degreeNames = new TreeSet<String>(eligibleByDegree.keySet());
+        degreeNames.addAll(ineligibleByDegree.keySet());
+
+        JsonObject degrees = new JsonObject();
+        for (String degree : degreeNames) {
+            degrees.add(degree, degreeToJson(degree));
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("state", getState().name());
+        json.addProperty("total", getTotal());
+        json.addProperty("processed", getProcessed());
+        json.addProperty("eligible", getEligible());
+        json.addProperty("ineligible", getIneligible());
+        json.add("degrees", degrees);
+        return json;
+    }
+
+    private JsonObject degreeToJson(String degree) {
+        AtomicInteger eligible = eligibleByDegree.get(degree);
+        AtomicInteger ineligible = ineligibleByDegree.get(degree);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("eligible", eligible != null ? eligible.get() : 0);
+        json.addProperty("ineligible", ineligible != null ? ineligible.get() : 0);
+        return json;
+    }
+
+}
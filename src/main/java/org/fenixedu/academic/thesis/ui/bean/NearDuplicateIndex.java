@@ -0,0 +1,196 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * MinHash signatures of proposal texts, bucketed with locality-sensitive hashing so that finding the proposals similar to
+ * a given one only compares it with the proposals sharing at least one band of its signature. Texts are compared as
+ * sets of word shingles, using the accent-folded terms of {@link ProposalSearchIndex#tokenize(String)}.
+ */
+public class NearDuplicateIndex {
+
+    public static final double DEFAULT_THRESHOLD = 0.7;
+
+    private static final int SHINGLE_SIZE = 3;
+    private static final int HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+
+    private static final HashFunction SHINGLE_HASH = Hashing.murmur3_128();
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        Random random = new Random(HASHES);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    private final Map<String, long[]> signatures = new HashMap<String, long[]>();
+    private final Map<Long, Set<String>> buckets = new HashMap<Long, Set<String>>();
+
+    /**
+     * @return the signature of the text, or null if the text has no terms
+     */
+    public static long[] signature(String text) {
+        List<String> terms = ProposalSearchIndex.tokenize(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        long[] signature = new long[HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        for (int start = 0; start <= Math.max(0, terms.size() - SHINGLE_SIZE); start++) {
+            String shingle = String.join(" ", terms.subList(start, Math.min(terms.size(), start + SHINGLE_SIZE)));
+            long hash = SHINGLE_HASH.hashString(shingle, StandardCharsets.UTF_8).asLong();
+
+            for (int i = 0; i < HASHES; i++) {
+                signature[i] = Math.min(signature[i], mix(hash ^ SEEDS[i]));
+            }
+        }
+
+        return signature;
+    }
+
+    /**
+     * @return the estimated Jaccard similarity of the shingle sets of two signatures
+     */
+    public static double similarity(long[] signature, long[] other) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signature[i] == other[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    public synchronized void put(String proposalId, long[] signature) {
+        remove(proposalId);
+
+        if (signature != null) {
+            signatures.put(proposalId, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(signature, band), key -> new HashSet<String>()).add(proposalId);
+            }
+        }
+    }
+
+    public synchronized void remove(String proposalId) {
+        long[] signature = signatures.remove(proposalId);
+
+        if (signature != null) {
+            for (int band = 0; band < BANDS; band++) {
+                long key = bandKey(signature, band);
+                Set<String> bucket = buckets.get(key);
+                bucket.remove(proposalId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the indexed proposals whose estimated similarity to the signature is at least the threshold, with their
+     *         similarity
+     */
+    public synchronized Map<String, Double> findSimilar(long[] signature, double threshold) {
+        Map<String, Double> similar = new HashMap<String, Double>();
+
+        if (signature != null) {
+            for (int band = 0; band < BANDS; band++) {
+                for (String candidate : buckets.getOrDefault(bandKey(signature, band), new HashSet<String>())) {
+                    if (!similar.containsKey(candidate)) {
+                        double similarity = similarity(signature, signatures.get(candidate));
+                        if (similarity >= threshold) {
+                            similar.put(candidate, similarity);
+                        }
+                    }
+                }
+            }
+        }
+
+        return similar;
+    }
+
+    /**
+     * Groups the given proposals with the indexed proposals they are similar to, transitively. Proposals without similar
+     * proposals are left out.
+     */
+    public synchronized List<Set<String>> group(Collection<String> proposalIds, double threshold) {
+        List<Set<String>> groups = new ArrayList<Set<String>>();
+        Set<String> grouped = new HashSet<String>();
+
+        for (String proposalId : proposalIds) {
+            if (grouped.contains(proposalId) || !signatures.containsKey(proposalId)) {
+                continue;
+            }
+
+            Set<String> group = new LinkedHashSet<String>();
+            List<String> pending = new ArrayList<String>();
+            pending.add(proposalId);
+
+            while (!pending.isEmpty()) {
+                String current = pending.remove(pending.size() - 1);
+                if (group.add(current)) {
+                    pending.addAll(findSimilar(signatures.get(current), threshold).keySet());
+                }
+            }
+
+            grouped.addAll(group);
+            if (group.size() > 1) {
+                groups.add(group);
+            }
+        }
+
+        return groups;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable list of the visible proposals of a configuration, holding every field shown to students. A catalogue is
+ * never changed once published, so readers may keep using the instance they got for as long as they need.
+ */
+public class ProposalCatalogue {
+
+    private static final Comparator<Entry> COMPARATOR_BY_IDENTIFIER = (e1, e2) -> e1.getIdentifier().compareTo(
+            e2.getIdentifier());
+
+    private final List<Entry> proposals;
+
+    public ProposalCatalogue(List<Entry> proposals) {
+        List<Entry> sorted = new ArrayList<Entry>(proposals);
+        Collections.sort(sorted, COMPARATOR_BY_IDENTIFIER);
+
+        this.proposals = Collections.unmodifiableList(sorted);
+    }
+
+    public List<Entry> getProposals() {
+        return proposals;
+    }
+
+    public static class Entry {
+
+        private final String externalId;
+        private final String identifier;
+        private final String title;
+        private final String observations;
+        private final String requirements;
+        private final String goals;
+        private final String localization;
+        private final String degrees;
+        private final List<Participant> participants;
+
+        public Entry(String externalId, String identifier, String title, String observations, String requirements,
+                String goals, String localization, String degrees, List<Participant> participants) {
+            this.externalId = externalId;
+            this.identifier = identifier;
+            this.title = title;
+            this.observations = observations;
+            this.requirements = requirements;
+            this.goals = goals;
+            this.localization = localization;
+            this.degrees = degrees;
+            this.participants = Collections.unmodifiableList(new ArrayList<Participant>(participants));
+        }
+
+        public String getExternalId() {
+            return externalId;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getObservations() {
+            return observations;
+        }
+
+        public String getRequirements() {
+            return requirements;
+        }
+
+        public String getGoals() {
+            return goals;
+        }
+
+        public String getLocalization() {
+            return localization;
+        }
+
+        public String getDegrees() {
+            return degrees;
+        }
+
+        public List<Participant> getParticipants() {
+            return participants;
+        }
+    }
+
+    public static class Participant {
+
+        private final String name;
+        private final int participationPercentage;
+        private final String institutionRole;
+
+        public Participant(String name, int participationPercentage, String institutionRole) {
+            this.name = name;
+            this.participationPercentage = participationPercentage;
+            this.institutionRole = institutionRole;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParticipationPercentage() {
+            return participationPercentage;
+        }
+
+        public String getInstitutionRole() {
+            return institutionRole;
+        }
+    }
+
+}
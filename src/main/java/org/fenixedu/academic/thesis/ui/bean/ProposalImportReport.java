@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fenixedu.bennu.core.i18n.BundleUtil;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Outcome of a proposals import: either every row of the file was created, or nothing was and the errors of all the
+ * rows are listed, each with the line of the file where its row starts. When writing fails after validation, the
+ * proposals already created are listed together with an error for each row that was not.
+ */
+public class ProposalImportReport {
+
+    private static final String BUNDLE = "resources.ThesisProposalsResources";
+
+    private final List<JsonObject> errors = new ArrayList<JsonObject>();
+    private final List<String> created = new ArrayList<String>();
+    private int rows;
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void incrementRows() {
+        rows++;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public void addError(int line, String key) {
+        JsonObject error = new JsonObject();
+        error.addProperty("line", line);
+        error.addProperty("error", key);
+        error.addProperty("message", BundleUtil.getString(BUNDLE, key));
+        errors.add(error);
+    }
+
+    public void addCreated(String identifier) {
+        created.add(identifier);
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("rows", rows);
+        json.addProperty("complete", !hasErrors());
+
+        JsonArray errorsJson = new JsonArray();
+        errors.forEach(errorsJson::add);
+        json.add("errors", errorsJson);
+
+        JsonArray createdJson = new JsonArray();
+        created.forEach(identifier -> createdJson.add(new JsonPrimitive(identifier)));
+        json.add("created", createdJson);
+
+        return json;
+    }
+
+}
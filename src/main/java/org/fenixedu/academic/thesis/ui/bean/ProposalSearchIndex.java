@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over the text of the proposals of a configuration. Terms are lower-cased and accent-folded, so that
+ * "orientação" and "orientacao" match, and every query term matches the indexed terms it is a prefix of. Results are
+ * ranked by the field weight of the matched terms times their inverse document frequency.
+ */
+public class ProposalSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<String, Map<String, Integer>>();
+    private final Map<String, Collection<String>> documentTerms = new HashMap<String, Collection<String>>();
+
+    public synchronized void put(String proposalId, Map<String, Integer> termWeights) {
+        remove(proposalId);
+
+        for (Entry<String, Integer> entry : termWeights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<String, Integer>()).put(proposalId, entry.getValue());
+        }
+        documentTerms.put(proposalId, new ArrayList<String>(termWeights.keySet()));
+    }
+
+    public synchronized void remove(String proposalId) {
+        Collection<String> terms = documentTerms.remove(proposalId);
+
+        if (terms != null) {
+            for (String term : terms) {
+                Map<String, Integer> documents = postings.get(term);
+                documents.remove(proposalId);
+                if (documents.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return documentTerms.size();
+    }
+
+    /**
+     * @return the ids of the proposals matching every term of the query, best ranked first
+     */
+    public synchronized List<String> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().collect(Collectors.toList());
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<String>();
+        }
+
+        Map<String, Double> scores = null;
+
+        for (String queryTerm : queryTerms) {
+            Map<String, Double> termScores = new HashMap<String, Double>();
+
+            for (Entry<String, Map<String, Integer>> posting : postings.subMap(queryTerm, true,
+                    queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                double idf = Math.log(1 + (double) documentTerms.size() / posting.getValue().size());
+                boolean exact = posting.getKey().length() == queryTerm.length();
+
+                for (Entry<String, Integer> document : posting.getValue().entrySet()) {
+                    termScores.merge(document.getKey(), document.getValue() * idf * (exact ? 1 : 0.5), Double::sum);
+                }
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                for (Entry<String, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                }
+            }
+
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        return scores.entrySet().stream().sorted(Entry.<String, Double> comparingByValue().reversed()).limit(limit)
+                .map(Entry::getKey).collect(Collectors.toList());
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<String>();
+
+        if (text != null) {
+            String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+            for (String term : SEPARATORS.split(folded)) {
+                if (term.length() >= MIN_TERM_LENGTH) {
+                    terms.add(term);
+                }
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Adds each term of the text to the given term weights with the given weight.
+     */
+    public static void addTerms(Map<String, Integer> termWeights, String text, int weight) {
+        for (String term : tokenize(text)) {
+            termWeights.merge(term, weight, Integer::sum);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.bennu.core.domain.User;
+import org.joda.time.DateTime;
+
+/**
+ * Criteria of a {@link ProposalsLog} query. Every criterion is optional; the proposal is given by its external id, so the
+ * entries of deleted proposals can still be queried, and the time range includes {@code from} and excludes {@code to}.
+ */
+public class ProposalsLogQuery {
+
+    private final String proposalId;
+    private final StudentThesisCandidacy candidacy;
+    private final User author;
+    private final DateTime from;
+    private final DateTime to;
+
+    public ProposalsLogQuery(String proposalId, StudentThesisCandidacy candidacy, User author, DateTime from, DateTime to) {
+        this.proposalId = proposalId;
+        this.candidacy = candidacy;
+        this.author = author;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getProposalId() {
+        return proposalId;
+    }
+
+    public StudentThesisCandidacy getCandidacy() {
+        return candidacy;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    public DateTime getFrom() {
+        return from;
+    }
+
+    public DateTime getTo() {
+        return to;
+    }
+
+    public boolean matches(ProposalsLog log) {
+        return (proposalId == null || proposalId.equals(log.getLoggedProposalId()))
+                && (candidacy == null || log.getLoggedCandidacy() == candidacy)
+                && (author == null || log.getAuthor() == author)
+                && (from == null || !log.getTimestamp().isBefore(from))
+                && (to == null || log.getTimestamp().isBefore(to));
+    }
+
+}
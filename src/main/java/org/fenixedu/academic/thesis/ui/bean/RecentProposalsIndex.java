@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+
+/**
+ * The proposals a user participated in, keeping for each title only the latest version whose proposal period has
+ * ended, ordered by proposal period, most recent first. Only the titles and periods are kept, so pages are served
+ * without reading the user's whole proposal history.
+ */
+public class RecentProposalsIndex {
+
+    private static final Comparator<Version> COMPARATOR_BY_PERIOD_START_DESC = Comparator
+            .comparing((Version version) -> version.period.getStart()).reversed().thenComparing(version -> version.proposalId);
+
+    private static class Version {
+        private final String proposalId;
+        private final String title;
+        private final Interval period;
+
+        private Version(String proposalId, String title, Interval period) {
+            this.proposalId = proposalId;
+            this.title = title;
+            this.period = period;
+        }
+    }
+
+    private final Map<String, Version> versions = new HashMap<String, Version>();
+
+    private List<String> latestVersions;
+    private DateTime validUntil;
+
+    public synchronized void put(String proposalId, String title, Interval proposalPeriod) {
+        versions.put(proposalId, new Version(proposalId, title, proposalPeriod));
+        latestVersions = null;
+    }
+
+    public synchronized void remove(String proposalId) {
+        if (versions.remove(proposalId) != null) {
+            latestVersions = null;
+        }
+    }
+
+    public synchronized int size() {
+        return getLatestVersions().size();
+    }
+
+    public synchronized List<String> getPage(int page, int pageSize) {
+        List<String> latest = getLatestVersions();
+        int from = Math.min(latest.size(), page * pageSize);
+        return new ArrayList<String>(latest.subList(from, Math.min(latest.size(), from + pageSize)));
+    }
+
+    /**
+     * The latest versions only change when a proposal is put or removed, or when the proposal period of a version ends.
+     */
+    private List<String> getLatestVersions() {
+        DateTime now = new DateTime();
+
+        if (latestVersions == null || (validUntil != null && !now.isBefore(validUntil))) {
+            Map<String, Version> latestByTitle = new HashMap<String, Version>();
+            validUntil = null;
+
+            for (Version version : versions.values()) {
+                if (version.period.isBefore(now)) {
+                    latestByTitle.merge(version.title, version,
+                            (v1, v2) -> COMPARATOR_BY_PERIOD_START_DESC.compare(v1, v2) <= 0 ? v1 : v2);
+                } else if (validUntil == null || version.period.getEnd().isBefore(validUntil)) {
+                    validUntil = version.period.getEnd();
+                }
+            }
+
+            latestVersions =
+                    latestByTitle.values().stream().sorted(COMPARATOR_BY_PERIOD_START_DESC).map(version -> version.proposalId)
+                            .collect(Collectors.toList());
+        }
+
+        return latestVersions;
+    }
+
+}
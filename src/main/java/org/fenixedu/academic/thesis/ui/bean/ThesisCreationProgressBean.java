@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import org.fenixedu.academic.thesis.domain.ThesisCreationJob;
+
+import com.google.gson.JsonObject;
+
+public class ThesisCreationProgressBean {
+
+    public enum State {
+        RUNNING, DONE, FAILED, STALLED
+    }
+
+    private final State state;
+    private final int total;
+    private final int created;
+    private final int updated;
+    private final int unchanged;
+    private final int skipped;
+
+    public ThesisCreationProgressBean(ThesisCreationJob job) {
+        this.state =
+                job.getFinished() ? job.getFailed() ? State.FAILED : State.DONE : job.isStalled() ? State.STALLED : State.RUNNING;
+        this.total = job.getTotal();
+        this.created = job.getCreated();
+        this.updated = job.getUpdated();
+        this.unchanged = job.getUnchanged();
+        this.skipped = job.getSkipped();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return created + updated + unchanged + skipped;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("state", getState().name());
+        json.addProperty("total", getTotal());
+        json.addProperty("processed", getProcessed());
+        json.addProperty("created", getCreated());
+        json.addProperty("updated", getUpdated());
+        json.addProperty("unchanged", getUnchanged());
+        json.addProperty("skipped", getSkipped());
+        return json;
+    }
+
+}
@@ -197,6 +197,45 @@ public class ThesisProposalBean {
 
         @Atomic(mode = TxMode.WRITE)
         public ThesisProposal build() throws ThesisProposalException {
+            Set<ThesisProposalParticipant> participants = createParticipants();
+
+            int totalPercentage =
+                    participants.stream().map(ThesisProposalParticipant::getParticipationPercentage).reduce(0, (a, b) -> a + b);
+            if (totalPercentage > 100) {
+                throw new TotalParticipantPercentageException();
+            }
+
+            for (ThesisProposalParticipant participant : participants) {
+                for (ThesisProposalsConfiguration configuration : configurations) {
+                    int proposalsCount =
+                            configuration
+                            .getThesisProposalSet()
+                            .stream()
+                            .filter(proposal -> proposal.getThesisProposalParticipantSet().stream().map(p -> p.getUser())
+                                    .filter(Objects::nonNull).collect(Collectors.toSet()).contains(participant.getUser()))
+                                    .collect(Collectors.toSet()).size();
+
+                    if (configuration.getMaxThesisProposalsByUser() != -1
+                            && proposalsCount >= configuration.getMaxThesisProposalsByUser()) {
+                        throw new MaxNumberThesisProposalsException(participant);
+                    }
+                }
+            }
+
+            return new ThesisProposal(title, observations, requirements, goals, localization, participants, configurations);
+        }
+
+        /**
+         * Creates the proposal with an identifier that was reserved beforehand, skipping the percentage and limit checks,
+         * which the caller must already have performed.
+         */
+        @Atomic(mode = TxMode.WRITE)
+        public ThesisProposal build(String identifier) {
+            return new ThesisProposal(identifier, title, observations, requirements, goals, localization, createParticipants(),
+                    configurations);
+        }
+
+        private Set<ThesisProposalParticipant> createParticipants() {
             Set<ThesisProposalParticipant> participants = new HashSet<ThesisProposalParticipant>();
 
             for (ThesisProposalParticipantBean participantBean : thesisProposalParticipantsBean) {
@@ -223,30 +262,7 @@ public class ThesisProposalBean {
 
             }
 
-            int totalPercentage =
-                    participants.stream().map(ThesisProposalParticipant::getParticipationPercentage).reduce(0, (a, b) -> a + b);
-            if (totalPercentage > 100) {
-                throw new TotalParticipantPercentageException();
-            }
-
-            for (ThesisProposalParticipant participant : participants) {
-                for (ThesisProposalsConfiguration configuration : configurations) {
-                    int proposalsCount =
-                            configuration
-                            .getThesisProposalSet()
-                            .stream()
-                            .filter(proposal -> proposal.getThesisProposalParticipantSet().stream().map(p -> p.getUser())
-                                    .filter(Objects::nonNull).collect(Collectors.toSet()).contains(participant.getUser()))
-                                    .collect(Collectors.toSet()).size();
-
-                    if (configuration.getMaxThesisProposalsByUser() != -1
-                            && proposalsCount >= configuration.getMaxThesisProposalsByUser()) {
-                        throw new MaxNumberThesisProposalsException(participant);
-                    }
-                }
-            }
-
-            return new ThesisProposal(title, observations, requirements, goals, localization, participants, configurations);
+            return participants;
         }
     }
 
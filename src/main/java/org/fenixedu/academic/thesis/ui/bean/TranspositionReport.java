@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Plan and progress of a bulk transposition of proposals into other configurations. The plan states, for every selected
+ * proposal, whether it is to be transposed or why it is skipped; a dry run only computes the plan.
+ */
+public class TranspositionReport {
+
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    public enum Outcome {
+        TRANSPOSE, ALREADY_TRANSPOSED, LIMIT_EXCEEDED
+    }
+
+    public static class Item {
+
+        private final String externalId;
+        private final String identifier;
+        private final String title;
+        private final Outcome outcome;
+
+        public Item(String externalId, String identifier, String title, Outcome outcome) {
+            this.externalId = externalId;
+            this.identifier = identifier;
+            this.title = title;
+            this.outcome = outcome;
+        }
+
+        public String getExternalId() {
+            return externalId;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("externalId", externalId);
+            json.addProperty("identifier", identifier);
+            json.addProperty("title", title);
+            json.addProperty("outcome", outcome.name());
+            return json;
+        }
+    }
+
+    private final boolean dryRun;
+    private final List<Item> items;
+    private volatile State state;
+    private final AtomicInteger transposed = new AtomicInteger();
+
+    public TranspositionReport(List<Item> items, boolean dryRun) {
+        this.items = Collections.unmodifiableList(items);
+        this.dryRun = dryRun;
+        this.state = dryRun ? State.DONE : State.RUNNING;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<String> getProposalsToTranspose() {
+        return items.stream().filter(item -> item.getOutcome() == Outcome.TRANSPOSE).map(Item::getExternalId)
+                .collect(Collectors.toList());
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public int getTransposed() {
+        return transposed.get();
+    }
+
+    public void addTransposed(int count) {
+        transposed.addAndGet(count);
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("state", getState().name());
+        json.addProperty("dryRun", isDryRun());
+        json.addProperty("total", getProposalsToTranspose().size());
+        json.addProperty("transposed", getTransposed());
+
+        JsonArray itemsJson = new JsonArray();
+        items.forEach(item -> itemsJson.add(item.toJson()));
+        json.add("items", itemsJson);
+
+        return json;
+    }
+
+}
@@ -19,14 +19,19 @@
 package org.fenixedu.academic.thesis.ui.controller;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import javax.servlet.UnavailableException;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.fenixedu.academic.domain.student.Registration;
@@ -35,13 +40,29 @@ import org.fenixedu.academic.thesis.domain.ThesisProposal;
 import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
 import org.fenixedu.academic.thesis.ui.bean.AdminProposalsSummaryBean;
+import org.fenixedu.academic.thesis.ui.bean.BulkOperationResult;
+import org.fenixedu.academic.thesis.ui.bean.EligibilityPrecomputationBean;
+import org.fenixedu.academic.thesis.ui.bean.ProposalImportReport;
+import org.fenixedu.academic.thesis.ui.bean.ThesisCreationProgressBean;
 import org.fenixedu.academic.thesis.ui.bean.ThesisProposalBean;
 import org.fenixedu.academic.thesis.ui.bean.ThesisProposalParticipantBean;
+import org.fenixedu.academic.thesis.ui.bean.TranspositionReport;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
 import org.fenixedu.academic.thesis.ui.exception.UnequivalentThesisConfigurationsException;
 import org.fenixedu.academic.thesis.ui.exception.UnexistentConfigurationException;
+import org.fenixedu.academic.thesis.ui.service.AssignmentSimulationService;
+import org.fenixedu.academic.thesis.ui.service.ConfigurationStatisticsService;
+import org.fenixedu.academic.thesis.ui.service.ContentVersionService;
+import org.fenixedu.academic.thesis.ui.service.DuplicateProposalService;
+import org.fenixedu.academic.thesis.ui.service.EligibilityPrecomputationService;
 import org.fenixedu.academic.thesis.ui.service.ExportThesisProposalsService;
 import org.fenixedu.academic.thesis.ui.service.ParticipantLabelService;
+import org.fenixedu.academic.thesis.ui.service.ParticipantsPayloadReader;
+import org.fenixedu.academic.thesis.ui.service.ProposalImportReader;
+import org.fenixedu.academic.thesis.ui.service.ProposalImportService;
+import org.fenixedu.academic.thesis.ui.service.ProposalSearchService;
+import org.fenixedu.academic.thesis.ui.service.ProposalTranspositionService;
+import org.fenixedu.academic.thesis.ui.service.ThesisCreationService;
 import org.fenixedu.academic.thesis.ui.service.ThesisProposalsService;
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.fenixedu.bennu.spring.portal.SpringFunctionality;
@@ -55,12 +76,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import pt.ist.fenixframework.FenixFramework;
 
-import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
 @SpringFunctionality(app = ThesisProposalsController.class, title = "title.thesisProposal.admin.management",
@@ -74,13 +98,52 @@ public class AdminThesisProposalsController {
     @Autowired
     ExportThesisProposalsService exportService;
 
+    @Autowired
+    AssignmentSimulationService simulationService;
+
+    @Autowired
+    ThesisCreationService thesisCreationService;
+
+    @Autowired
+    EligibilityPrecomputationService eligibilityPrecomputationService;
+
+    @Autowired
+    ProposalSearchService searchService;
+
+    @Autowired
+    DuplicateProposalService duplicateService;
+
+    @Autowired
+    ContentVersionService contentVersionService;
+
+    @Autowired
+    ConfigurationStatisticsService statisticsService;
+
+    @Autowired
+    ProposalImportService importService;
+
+    @Autowired
+    ProposalTranspositionService transpositionService;
+
     @Autowired(required = false)
     ParticipantLabelService participantLabelService;
 
     @RequestMapping(method = RequestMethod.GET)
     public String listProposals(Model model, @RequestParam(required = false) ThesisProposalsConfiguration configuration,
             @RequestParam(required = false) Boolean isVisible, @RequestParam(required = false) Boolean isAttributed,
-            @RequestParam(required = false) Boolean hasCandidacy) {
+            @RequestParam(required = false) Boolean hasCandidacy, WebRequest request, HttpServletResponse response) {
+
+        if (configuration != null
+                && contentVersionService.checkNotModified(request, response,
+                        Collections.singleton(configuration.getExternalId()), "admin-proposals")) {
+            return null;
+        }
+
+        return listProposals(model, configuration, isVisible, isAttributed, hasCandidacy);
+    }
+
+    public String listProposals(Model model, ThesisProposalsConfiguration configuration, Boolean isVisible,
+            Boolean isAttributed, Boolean hasCandidacy) {
 
         List<ThesisProposalsConfiguration> configurations =
                 service.getThesisProposalsConfigurationsForCoordinator(Authenticate.getUser());
@@ -153,13 +216,10 @@ public class AdminThesisProposalsController {
 
         ThesisProposal thesisProposal = FenixFramework.getDomainObject(thesisProposalBean.getExternalId());
 
-        JsonParser parser = new JsonParser();
-        JsonArray participantsArray = (JsonArray) parser.parse(participantsJson);
-        JsonArray externalsArray = (JsonArray) parser.parse(externalsJson);
-
         try {
-            service.editThesisProposal(Authenticate.getUser(), thesisProposalBean, thesisProposal, participantsArray,
-                    externalsArray);
+            List<ThesisProposalParticipantBean> participants = ParticipantsPayloadReader.read(participantsJson, externalsJson);
+
+            service.editThesisProposal(Authenticate.getUser(), thesisProposalBean, thesisProposal, participants);
             redirectAttrs.addAttribute("configuration", configuration != null ? configuration.getExternalId() : null);
             return new ModelAndView("redirect:/admin-proposals");
         } catch (ThesisProposalException exception) {
@@ -169,7 +229,14 @@ public class AdminThesisProposalsController {
     }
 
     @RequestMapping(method = RequestMethod.GET, value = "candidates")
-    public String listCandidates(Model model, @RequestParam(required = false) ThesisProposalsConfiguration configuration) {
+    public String listCandidates(Model model, @RequestParam(required = false) ThesisProposalsConfiguration configuration,
+            WebRequest request, HttpServletResponse response) {
+
+        if (configuration != null
+                && contentVersionService.checkNotModified(request, response,
+                        Collections.singleton(configuration.getExternalId()), "admin-proposals/candidates")) {
+            return null;
+        }
 
         List<ThesisProposalsConfiguration> configurations =
                 service.getThesisProposalsConfigurationsForCoordinator(Authenticate.getUser());
@@ -202,6 +269,137 @@ public class AdminThesisProposalsController {
         return "redirect:/admin-proposals/candidates?configuration=" + configuration.getExternalId();
     }
 
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/search", method = RequestMethod.GET)
+    public ResponseEntity<String> searchProposals(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam String query) {
+        return new ResponseEntity<String>(searchService.search(configuration, query, true).toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/duplicates", method = RequestMethod.GET)
+    public ResponseEntity<String> duplicateProposals(@RequestParam ThesisProposalsConfiguration configuration) {
+        return new ResponseEntity<String>(duplicateService.groupDuplicates(configuration).toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/simulate", method = RequestMethod.POST)
+    public ResponseEntity<String> simulateAssignment(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam String json) {
+
+        JsonElement operations;
+        try {
+            operations = new JsonParser().parse(json);
+        } catch (JsonParseException e) {
+            return new ResponseEntity<String>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (!isSimulationOperations(operations)) {
+            return new ResponseEntity<String>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<String>(simulationService.simulate(configuration, operations.getAsJsonArray()).toString(),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Whether the payload is an array of objects with string {@code externalId} and {@code operation} fields.
+     */
+    private static boolean isSimulationOperations(JsonElement operations) {
+        if (operations == null || !operations.isJsonArray()) {
+            return false;
+        }
+
+        for (JsonElement operation : operations.getAsJsonArray()) {
+            if (!operation.isJsonObject() || !isString(operation.getAsJsonObject().get("externalId"))
+                    || !isString(operation.getAsJsonObject().get("operation"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isString(JsonElement element) {
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/createTheses", method = RequestMethod.POST)
+    public ResponseEntity<String> createTheses(@RequestParam ThesisProposalsConfiguration configuration) {
+        return new ResponseEntity<String>(thesisCreationService.createTheses(configuration).toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/createTheses/progress", method = RequestMethod.GET)
+    public ResponseEntity<String> createThesesProgress(@RequestParam ThesisProposalsConfiguration configuration) {
+        ThesisCreationProgressBean progress = thesisCreationService.getProgress(configuration);
+
+        if (progress == null) {
+            return new ResponseEntity<String>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<String>(progress.toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/precomputeEligibility", method = RequestMethod.POST)
+    public ResponseEntity<String> precomputeEligibility(@RequestParam ThesisProposalsConfiguration configuration) {
+        return new ResponseEntity<String>(eligibilityPrecomputationService.precompute(configuration).toJson().toString(),
+                HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/precomputeEligibility/progress",
+            method = RequestMethod.GET)
+    public ResponseEntity<String> precomputeEligibilityProgress(@RequestParam ThesisProposalsConfiguration configuration) {
+        EligibilityPrecomputationBean progress = eligibilityPrecomputationService.getProgress(configuration);
+
+        if (progress == null) {
+            return new ResponseEntity<String>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<String>(progress.toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/statistics", method = RequestMethod.GET)
+    public ResponseEntity<String> statistics(@RequestParam ThesisProposalsConfiguration configuration) {
+        return new ResponseEntity<String>(statisticsService.getStatistics(configuration).toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/transposeProposals", method = RequestMethod.POST)
+    public ResponseEntity<String> transposeProposals(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam Set<ThesisProposalsConfiguration> targets,
+            @RequestParam(required = false) Set<ThesisProposal> proposals, @RequestParam(defaultValue = "true") boolean dryRun) {
+
+        try {
+            TranspositionReport report = transpositionService.transpose(configuration, targets, proposals, dryRun);
+            return new ResponseEntity<String>(report.toJson().toString(), HttpStatus.OK);
+        } catch (ThesisProposalException exception) {
+            JsonObject json = new JsonObject();
+            json.addProperty("error", exception.getClass().getSimpleName());
+            return new ResponseEntity<String>(json.toString(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/transposeProposals/progress",
+            method = RequestMethod.GET)
+    public ResponseEntity<String> transposeProposalsProgress(@RequestParam ThesisProposalsConfiguration configuration) {
+        TranspositionReport progress = transpositionService.getProgress(configuration);
+
+        if (progress == null) {
+            return new ResponseEntity<String>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<String>(progress.toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/import", method = RequestMethod.POST)
+    public ResponseEntity<String> importProposals(@RequestParam(required = false) String format, HttpServletRequest request)
+            throws IOException {
+
+        ProposalImportReader.Format importFormat =
+                "jsonl".equals(format) ? ProposalImportReader.Format.JSON_LINES : ProposalImportReader.Format.CSV;
+
+        ProposalImportReport report =
+                importService.importProposals(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8),
+                        importFormat);
+
+        return new ResponseEntity<String>(report.toJson().toString(), HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/export", method = RequestMethod.GET)
     public void exportCSV(@RequestParam ThesisProposalsConfiguration configuration, HttpServletResponse response)
             throws IOException, UnavailableException {
@@ -225,6 +423,29 @@ public class AdminThesisProposalsController {
         return new ResponseEntity<String>(new Boolean(proposal.getHidden()).toString(), HttpStatus.OK);
     }
 
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/bulk", method = RequestMethod.POST)
+    public ResponseEntity<String> bulkAction(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam String action, @RequestParam(required = false) Boolean isVisible,
+            @RequestParam(required = false) Boolean isAttributed, @RequestParam(required = false) Boolean hasCandidacy,
+            @RequestParam(required = false) Set<ThesisProposal> proposals) {
+
+        ThesisProposalsService.BulkAction bulkAction;
+        try {
+            bulkAction = ThesisProposalsService.BulkAction.valueOf(action.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<String>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<ThesisProposal> selection =
+                service.getCoordinatorProposals(configuration, isVisible, isAttributed, hasCandidacy).stream()
+                        .filter(proposal -> proposals == null || proposals.isEmpty() || proposals.contains(proposal))
+                        .collect(Collectors.toList());
+
+        BulkOperationResult result = service.applyBulkAction(selection, bulkAction);
+
+        return new ResponseEntity<String>(result.toJson().toString(), HttpStatus.OK);
+    }
+
     @RequestMapping(method = RequestMethod.GET, value = "/createProposal")
     public ModelAndView createProposalForm(Model model, @RequestParam(required = false) ThesisProposalsConfiguration configuration) {
 
@@ -262,7 +483,14 @@ public class AdminThesisProposalsController {
     }
 
     @RequestMapping(value = "/manage/{oid}", method = RequestMethod.GET)
-    public ModelAndView manageCandidacies(@PathVariable("oid") ThesisProposal thesisProposal, Model model) {
+    public ModelAndView manageCandidacies(@PathVariable("oid") ThesisProposal thesisProposal, Model model,
+            WebRequest request, HttpServletResponse response) {
+
+        if (contentVersionService.checkNotModified(request, response, getConfigurationIds(thesisProposal),
+                "admin-proposals/manage " + thesisProposal.getExternalId())) {
+            return null;
+        }
+
         ModelAndView view = new ModelAndView("thesisCandidacies/manage");
         view.addObject("coordinatorManagement", true);
         view.addObject("baseAction", "admin-proposals");
@@ -292,8 +520,10 @@ public class AdminThesisProposalsController {
                 }
             }
 
+            List<ThesisProposalParticipantBean> participants = ParticipantsPayloadReader.read(participantsJson, externalsJson);
+
             proposalBean.setThesisProposalsConfigurations(thesisProposalsConfigurations);
-            service.createThesisProposal(proposalBean, participantsJson, externalsJson);
+            service.createThesisProposal(proposalBean, participants);
         } catch (ThesisProposalException exception) {
             model.addAttribute("error", exception.getClass().getSimpleName());
             model.addAttribute("configurations", service.getCurrentThesisProposalsConfigurations());
@@ -317,4 +547,9 @@ public class AdminThesisProposalsController {
 
         return new ModelAndView("redirect:/admin-proposals");
     }
+
+    private Set<String> getConfigurationIds(ThesisProposal thesisProposal) {
+        return thesisProposal.getThesisConfigurationSet().stream().map(ThesisProposalsConfiguration::getExternalId)
+                .collect(Collectors.toSet());
+    }
 }
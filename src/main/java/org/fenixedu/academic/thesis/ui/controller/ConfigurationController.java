@@ -18,25 +18,37 @@
  */
 package org.fenixedu.academic.thesis.ui.controller;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import jvstm.cps.ConsistencyException;
 
 import org.fenixedu.academic.domain.ExecutionDegree;
 import org.fenixedu.academic.domain.ExecutionYear;
-import org.fenixedu.academic.domain.degreeStructure.CycleType;
 import org.fenixedu.academic.domain.exceptions.DomainException;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
 import org.fenixedu.academic.thesis.domain.ThesisProposalParticipantType;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
 import org.fenixedu.academic.thesis.ui.bean.ConfigurationBean;
 import org.fenixedu.academic.thesis.ui.bean.ParticipantTypeBean;
+import org.fenixedu.academic.thesis.ui.bean.ProposalsLogQuery;
 import org.fenixedu.academic.thesis.ui.exception.OverlappingIntervalsException;
-import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.service.AssignmentHistoryService;
+import org.fenixedu.academic.thesis.ui.service.ProposalsLogService;
+import org.fenixedu.academic.thesis.ui.service.ReferenceDataService;
+import org.fenixedu.academic.thesis.ui.service.StudentCandidaciesService;
+import org.fenixedu.academic.thesis.ui.service.YearArchiveService;
+import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.bennu.core.groups.DynamicGroup;
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.fenixedu.bennu.spring.portal.SpringFunctionality;
@@ -45,6 +57,7 @@ import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -71,13 +84,25 @@ import com.google.gson.JsonParser;
 @RequestMapping("/configuration")
 public class ConfigurationController {
 
+    @Autowired
+    StudentCandidaciesService studentCandidaciesService;
+
+    @Autowired
+    ReferenceDataService referenceDataService;
+
+    @Autowired
+    YearArchiveService yearArchiveService;
+
+    @Autowired
+    ProposalsLogService proposalsLogService;
+
+    @Autowired
+    AssignmentHistoryService assignmentHistoryService;
+
     @RequestMapping(value = "", method = RequestMethod.GET)
     public String listConfigurations(Model model) {
 
-        TreeSet<ExecutionYear> executionYearsList = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
-        executionYearsList.addAll(Bennu.getInstance().getExecutionYearsSet());
-
-        model.addAttribute("executionYearsList", executionYearsList);
+        model.addAttribute("executionYearsList", referenceDataService.getExecutionYears());
 
         Set<ThesisProposalsConfiguration> configurationsSet =
                 ThesisProposalsSystem.getInstance().getThesisProposalsConfigurationSet();
@@ -91,14 +116,9 @@ public class ConfigurationController {
 
         model.addAttribute("configurationsList", configurationsList);
 
-        List<ThesisProposalParticipantType> participantTypeList =
-                ThesisProposalsSystem.getInstance().getThesisProposalParticipantTypeSet().stream().collect(Collectors.toList());
-
-        Collections.sort(participantTypeList, ThesisProposalParticipantType.COMPARATOR_BY_WEIGHT);
+        model.addAttribute("participantTypeList", referenceDataService.getParticipantTypes());
 
-        model.addAttribute("participantTypeList", participantTypeList);
-
-        model.addAttribute("isManager", DynamicGroup.get("managers").isMember(Authenticate.getUser()));
+        model.addAttribute("isManager", isManager());
 
         return "/configuration/list";
     }
@@ -108,14 +128,7 @@ public class ConfigurationController {
 
         ModelAndView mav = new ModelAndView("/configuration/create", "command", thesisProposalsConfigurationBean);
 
-        TreeSet<ExecutionYear> executionYearsList = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
-        executionYearsList.addAll(Bennu.getInstance().getExecutionYearsSet());
-        model.addAttribute("executionYearsList", executionYearsList);
-
-        List<ExecutionDegree> executionDegreeList =
-                Bennu.getInstance().getExecutionDegreesSet().stream().collect(Collectors.toList());
-        Collections.sort(executionDegreeList, ExecutionDegree.COMPARATOR_BY_DEGREE_NAME);
-        mav.addObject("executionDegreeList", executionDegreeList);
+        addCreateFormReferenceData(model);
 
         return mav;
     }
@@ -133,28 +146,19 @@ public class ConfigurationController {
         } catch (ConsistencyException exception) {
             model.addAttribute("createException", true);
             model.addAttribute("command", configurationBean);
-
-            TreeSet<ExecutionYear> executionYearsList = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
-            executionYearsList.addAll(Bennu.getInstance().getExecutionYearsSet());
-            model.addAttribute("executionYearsList", executionYearsList);
+            addCreateFormReferenceData(model);
 
             return new ModelAndView("/configuration/create", model.asMap());
         } catch (IllegalArgumentException exception) {
             model.addAttribute("illegalArgumentException", true);
             model.addAttribute("command", configurationBean);
-
-            TreeSet<ExecutionYear> executionYearsList = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
-            executionYearsList.addAll(Bennu.getInstance().getExecutionYearsSet());
-            model.addAttribute("executionYearsList", executionYearsList);
+            addCreateFormReferenceData(model);
 
             return new ModelAndView("/configuration/create", model.asMap());
         } catch (OverlappingIntervalsException e) {
             model.addAttribute("overlappingIntervalsException", true);
             model.addAttribute("command", configurationBean);
-
-            TreeSet<ExecutionYear> executionYearsList = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
-            executionYearsList.addAll(Bennu.getInstance().getExecutionYearsSet());
-            model.addAttribute("executionYearsList", executionYearsList);
+            addCreateFormReferenceData(model);
 
             return new ModelAndView("/configuration/create", model.asMap());
         }
@@ -162,6 +166,11 @@ public class ConfigurationController {
         return new ModelAndView("redirect:/configuration");
     }
 
+    private void addCreateFormReferenceData(Model model) {
+        model.addAttribute("executionYearsList", referenceDataService.getExecutionYears());
+        model.addAttribute("executionDegreeList", referenceDataService.getExecutionDegrees());
+    }
+
     @RequestMapping(value = "/delete/{oid}", method = RequestMethod.POST)
     public ModelAndView deleteConfiguration(@PathVariable("oid") ThesisProposalsConfiguration thesisProposalsConfiguration,
             Model model) {
@@ -248,16 +257,9 @@ public class ConfigurationController {
                 .flatMap(proposal -> proposal.getThesisConfigurationSet().stream()).collect(Collectors.toSet());
         sharedConfigs.add(thesisProposalsConfiguration);
 
-        sharedConfigs.forEach(config -> {
-            config.setProposalPeriod(proposalPeriod);
-            config.setCandidacyPeriod(candidacyPeriod);
-
-            config.setMaxThesisCandidaciesByStudent(configurationBean.getMaxThesisCandidaciesByStudent());
-            config.setMaxThesisProposalsByUser(configurationBean.getMaxThesisProposalsByUser());
-
-            config.setMinECTS1stCycle(configurationBean.getMinECTS1stCycle());
-            config.setMinECTS2ndCycle(configurationBean.getMinECTS2ndCycle());
-        });
+        sharedConfigs.forEach(config -> config.edit(proposalPeriod, candidacyPeriod,
+                configurationBean.getMaxThesisCandidaciesByStudent(), configurationBean.getMaxThesisProposalsByUser(),
+                configurationBean.getMinECTS1stCycle(), configurationBean.getMinECTS2ndCycle()));
 
     }
 
@@ -269,19 +271,149 @@ public class ConfigurationController {
         JsonArray response = new JsonArray();
 
         List<ExecutionDegree> executionDegreeList =
-                ExecutionDegree.getAllByExecutionYear(executionYear).stream()
-                        .filter(executionDegree -> executionDegree.getDegree().getCycleTypes().contains(CycleType.SECOND_CYCLE))
+                referenceDataService.getSecondCycleExecutionDegrees(executionYear).stream()
                         .filter((x) -> ThesisProposalsSystem.canManage(x.getDegree(), Authenticate.getUser()))
                         .collect(Collectors.toList());
 
-        Collections.sort(executionDegreeList,
-                ExecutionDegree.EXECUTION_DEGREE_COMPARATORY_BY_DEGREE_TYPE_AND_NAME_AND_EXECUTION_YEAR);
-
         executionDegreeList.forEach(executionDegree -> response.add(executionDegreeToJson(executionDegree)));
 
         return new ResponseEntity<String>(response.toString(), HttpStatus.OK);
     }
 
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/candidacy-submission-metrics",
+            method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<String> getCandidacySubmissionMetrics() {
+        return new ResponseEntity<String>(studentCandidaciesService.getSubmissionMetrics().toJson().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/archive", method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<String> getArchivePartitions() {
+        if (!isManager()) {
+            return new ResponseEntity<String>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<String>(yearArchiveService.getPartitions().toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/archive/{executionYear}", method = RequestMethod.POST)
+    public @ResponseBody ResponseEntity<String> archiveExecutionYear(@PathVariable("executionYear") ExecutionYear executionYear) {
+        if (!isManager()) {
+            return new ResponseEntity<String>(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return new ResponseEntity<String>(yearArchiveService.archive(executionYear).toString(), HttpStatus.OK);
+        } catch (ThesisProposalException exception) {
+            return archiveErrorResponse(exception);
+        }
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/restore/{executionYear}", method = RequestMethod.POST)
+    public @ResponseBody ResponseEntity<String> restoreExecutionYear(@PathVariable("executionYear") ExecutionYear executionYear) {
+        if (!isManager()) {
+            return new ResponseEntity<String>(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return new ResponseEntity<String>(yearArchiveService.restore(executionYear).toString(), HttpStatus.OK);
+        } catch (ThesisProposalException exception) {
+            return archiveErrorResponse(exception);
+        }
+    }
+
+    /**
+     * Archiving moves a whole execution year across every degree, so it is kept to managers even though the rest of this
+     * functionality is open to thesis system managers.
+     */
+    private boolean isManager() {
+        return DynamicGroup.get("managers").isMember(Authenticate.getUser());
+    }
+
+    private ResponseEntity<String> archiveErrorResponse(ThesisProposalException exception) {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", exception.getClass().getSimpleName());
+        return new ResponseEntity<String>(json.toString(), HttpStatus.BAD_REQUEST);
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/logs", method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<String> getLogs(@RequestParam(required = false) String proposal,
+            @RequestParam(required = false) StudentThesisCandidacy candidacy, @RequestParam(required = false) String author,
+            @RequestParam(required = false) String from, @RequestParam(required = false) String to,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "50") int limit) {
+
+        ProposalsLogQuery query;
+        try {
+            query = getLogQuery(proposal, candidacy, author, from, to);
+        } catch (IllegalArgumentException exception) {
+            return new ResponseEntity<String>(HttpStatus.BAD_REQUEST);
+        }
+        if (query == null) {
+            return new ResponseEntity<String>(HttpStatus.NOT_FOUND);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, ProposalsLogService.MAX_PAGE_SIZE));
+
+        return new ResponseEntity<String>(proposalsLogService.getPage(query, cursor, pageSize).toString(), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/logs/export", method = RequestMethod.GET)
+    public void exportLogs(@RequestParam(required = false) String proposal,
+            @RequestParam(required = false) StudentThesisCandidacy candidacy, @RequestParam(required = false) String author,
+            @RequestParam(required = false) String from, @RequestParam(required = false) String to,
+            HttpServletResponse response) throws IOException {
+
+        ProposalsLogQuery query;
+        try {
+            query = getLogQuery(proposal, candidacy, author, from, to);
+        } catch (IllegalArgumentException exception) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (query == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-disposition", "attachment; filename=proposals_log.csv");
+
+        Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        proposalsLogService.export(query, writer);
+        writer.flush();
+    }
+
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/history", method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<String> getHistory(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam(required = false) String at) {
+
+        DateTime timestamp;
+        try {
+            timestamp = at != null ? ISODateTimeFormat.dateTimeParser().parseDateTime(at) : new DateTime();
+        } catch (IllegalArgumentException exception) {
+            return new ResponseEntity<String>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<String>(assignmentHistoryService.getStateAt(configuration, timestamp).toString(),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Builds the query of the logs endpoints, or returns null when the given author does not exist. The proposal is given
+     * by its external id, as the entries of deleted proposals can still be queried.
+     *
+     * @throws IllegalArgumentException when {@code from} or {@code to} is not an ISO timestamp
+     */
+    private ProposalsLogQuery getLogQuery(String proposal, StudentThesisCandidacy candidacy, String author,
+            String from, String to) {
+        DateTimeFormatter formatter = ISODateTimeFormat.dateTimeParser();
+
+        User authorUser = author != null ? User.findByUsername(author) : null;
+        if (author != null && authorUser == null) {
+            return null;
+        }
+
+        return new ProposalsLogQuery(proposal, candidacy, authorUser, from != null ? formatter.parseDateTime(from) : null,
+                to != null ? formatter.parseDateTime(to) : null);
+    }
+
     private JsonElement executionDegreeToJson(ExecutionDegree executionDegree) {
         JsonObject json = new JsonObject();
 
@@ -294,12 +426,7 @@ public class ConfigurationController {
     @RequestMapping(value = "createParticipantType", method = RequestMethod.GET)
     public String createParticipantTypeForm(Model model) {
 
-        List<ThesisProposalParticipantType> participantTypeList =
-                ThesisProposalsSystem.getInstance().getThesisProposalParticipantTypeSet().stream().collect(Collectors.toList());
-
-        Collections.sort(participantTypeList, ThesisProposalParticipantType.COMPARATOR_BY_WEIGHT);
-
-        model.addAttribute("participantTypeList", participantTypeList);
+        model.addAttribute("participantTypeList", referenceDataService.getParticipantTypes());
 
         return "participantsType/create";
     }
@@ -308,6 +435,7 @@ public class ConfigurationController {
     public String createParticipantType(@RequestParam LocalizedString name, @RequestParam int weight) {
 
         createThesisProposalParticipantType(name, weight);
+        referenceDataService.invalidateParticipantTypes();
 
         return "redirect:/configuration";
     }
@@ -321,7 +449,10 @@ public class ConfigurationController {
     public String deleteParticipantType(@PathVariable("participantType") ThesisProposalParticipantType participantType,
             Model model) {
 
-        return delete(participantType, model);
+        String view = delete(participantType, model);
+        referenceDataService.invalidateParticipantTypes();
+
+        return view;
     }
 
     @Atomic(mode = TxMode.WRITE)
@@ -353,7 +484,10 @@ public class ConfigurationController {
 
         ParticipantTypeBean bean = new ParticipantTypeBean(name, weight, externalId);
 
-        return edit(bean);
+        String view = edit(bean);
+        referenceDataService.invalidateParticipantTypes();
+
+        return view;
     }
 
     @Atomic(mode = TxMode.WRITE)
@@ -373,6 +507,7 @@ public class ConfigurationController {
         JsonArray jsonArray = (JsonArray) parser.parse(json);
 
         updateParticipantTypeWeights(jsonArray);
+        referenceDataService.invalidateParticipantTypes();
 
         return "redirect:/configuration";
     }
@@ -393,6 +528,7 @@ public class ConfigurationController {
             Model model) {
 
         setParticipantTypeInactiveness(participantType, true);
+        referenceDataService.invalidateParticipantTypes();
 
         return "redirect:/configuration";
     }
@@ -402,6 +538,7 @@ public class ConfigurationController {
             Model model) {
 
         setParticipantTypeInactiveness(participantType, false);
+        referenceDataService.invalidateParticipantTypes();
 
         return "redirect:/configuration";
     }
@@ -18,29 +18,40 @@
  */
 package org.fenixedu.academic.thesis.ui.controller;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.fenixedu.academic.domain.student.Registration;
 import org.fenixedu.academic.domain.student.Student;
 import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
 import org.fenixedu.academic.thesis.domain.ThesisProposal;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.ProposalCatalogue;
 import org.fenixedu.academic.thesis.ui.exception.MaxNumberStudentThesisCandidaciesException;
 import org.fenixedu.academic.thesis.ui.exception.OutOfCandidacyPeriodException;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.service.ContentVersionService;
+import org.fenixedu.academic.thesis.ui.service.IdempotencyService;
 import org.fenixedu.academic.thesis.ui.service.ParticipantLabelService;
+import org.fenixedu.academic.thesis.ui.service.ProposalSearchService;
 import org.fenixedu.academic.thesis.ui.service.StudentCandidaciesService;
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.fenixedu.bennu.spring.portal.SpringFunctionality;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.google.gson.JsonArray;
@@ -54,22 +65,56 @@ public class StudentCandidaciesController {
     @Autowired
     StudentCandidaciesService service;
 
+    @Autowired
+    ProposalSearchService searchService;
+
+    @Autowired
+    ContentVersionService contentVersionService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
     @Autowired(required = false)
     ParticipantLabelService participantLabelService;
 
     @RequestMapping(value = "", method = RequestMethod.GET)
+    public String listProposals(Model model, WebRequest request, HttpServletResponse response) {
+
+        Student student = Authenticate.getUser().getPerson().getStudent();
+        Set<ThesisProposalsConfiguration> configurations = service.getStudentConfigurations(student);
+
+        List<String> keys = configurations.stream().map(ThesisProposalsConfiguration::getExternalId).collect(Collectors.toList());
+        keys.add(student.getExternalId());
+
+        String openConfigurations =
+                configurations.stream().filter(config -> config.getCandidacyPeriod().containsNow())
+                        .map(ThesisProposalsConfiguration::getExternalId).sorted().collect(Collectors.joining(","));
+
+        // Eligibility depends on the curriculum, which the content version does not cover
+        String ineligibleConfigurations =
+                service.getIneligibleConfigs(student).stream().map(ThesisProposalsConfiguration::getExternalId).sorted()
+                        .collect(Collectors.joining(","));
+
+        if (contentVersionService.checkNotModified(request, response, keys, "studentCandidacies " + openConfigurations
+                + " ineligible " + ineligibleConfigurations)) {
+            return null;
+        }
+
+        return listProposals(model);
+    }
+
     public String listProposals(Model model) {
 
         Student student = Authenticate.getUser().getPerson().getStudent();
 
         Set<ThesisProposalsConfiguration> suggestedConfigs = service.getSuggestedConfigs(student);
 
-        HashMap<Registration, Set<ThesisProposal>> proposalsByReg = service.getOpenProposalsByReg(student);
+        Map<Registration, List<ProposalCatalogue.Entry>> proposalsByReg = service.getOpenProposalsByReg(student);
 
         Map<ThesisProposalsConfiguration, List<StudentThesisCandidacy>> candidaciesByConfig =
                 service.getCandidaciesByConfig(student);
 
-        int proposalsSize = proposalsByReg.values().stream().map(Set::size).reduce(0, (a, b) -> a + b);
+        int proposalsSize = proposalsByReg.values().stream().map(List::size).reduce(0, (a, b) -> a + b);
         int candidaciesSize = candidaciesByConfig.values().stream().map(List::size).reduce(0, (a, b) -> a + b);
 
         if (participantLabelService != null) {
@@ -77,6 +122,7 @@ public class StudentCandidaciesController {
         }
 
         model.addAttribute("suggestedConfigs", suggestedConfigs);
+        model.addAttribute("ineligibleConfigs", service.getIneligibleConfigs(student));
         model.addAttribute("proposalsSize", proposalsSize);
         model.addAttribute("candidaciesSize", candidaciesSize);
         model.addAttribute("candidaciesByConfig", candidaciesByConfig);
@@ -87,11 +133,14 @@ public class StudentCandidaciesController {
 
     @RequestMapping(value = "/candidate/{oid}", method = RequestMethod.POST)
     public String createThesisCandidacyForm(@PathVariable("oid") ThesisProposal thesisProposal,
-            @RequestParam Registration registration, Model model) throws MaxNumberStudentThesisCandidaciesException,
-            OutOfCandidacyPeriodException {
+            @RequestParam Registration registration, Model model, HttpServletRequest request)
+            throws MaxNumberStudentThesisCandidaciesException, OutOfCandidacyPeriodException {
 
         try {
-            service.createStudentThesisCandidacy(registration, thesisProposal);
+            idempotencyService.execute(request, () -> {
+                service.createStudentThesisCandidacy(registration, thesisProposal);
+                return null;
+            });
         } catch (ThesisProposalException exception) {
             model.addAttribute("error", exception.getClass().getSimpleName());
             return listProposals(model);
@@ -118,8 +167,10 @@ public class StudentCandidaciesController {
         JsonParser parser = new JsonParser();
         JsonArray jsonArray = (JsonArray) parser.parse(json);
 
+        Student student = Authenticate.getUser().getPerson().getStudent();
+
         try {
-            service.updateStudentThesisCandidaciesWeights(jsonArray);
+            service.updateStudentThesisCandidaciesWeights(student, jsonArray);
         } catch (ThesisProposalException e) {
             redirectAttrs.addAttribute("error", e.getClass().getSimpleName());
         }
@@ -127,4 +178,17 @@ public class StudentCandidaciesController {
         return "redirect:/studentCandidacies";
     }
 
+    @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE, value = "/search", method = RequestMethod.GET)
+    public ResponseEntity<String> searchProposals(@RequestParam ThesisProposalsConfiguration configuration,
+            @RequestParam String query) {
+
+        Student student = Authenticate.getUser().getPerson().getStudent();
+
+        if (!service.getStudentOpenConfigurations(student).contains(configuration)) {
+            return new ResponseEntity<String>(HttpStatus.FORBIDDEN);
+        }
+
+        return new ResponseEntity<String>(searchService.search(configuration, query, false).toString(), HttpStatus.OK);
+    }
+
 }
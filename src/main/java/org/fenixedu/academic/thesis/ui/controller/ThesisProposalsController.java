@@ -23,6 +23,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.fenixedu.academic.domain.ExecutionYear;
 import org.fenixedu.academic.domain.accessControl.CoordinatorGroup;
 import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
@@ -36,8 +39,12 @@ import org.fenixedu.academic.thesis.ui.exception.OutOfProposalPeriodException;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
 import org.fenixedu.academic.thesis.ui.exception.UnequivalentThesisConfigurationsException;
 import org.fenixedu.academic.thesis.ui.exception.UnexistentConfigurationException;
-import org.fenixedu.academic.thesis.ui.exception.UnexistentThesisParticipantException;
+import org.fenixedu.academic.thesis.ui.service.ContentVersionService;
+import org.fenixedu.academic.thesis.ui.service.DuplicateProposalService;
+import org.fenixedu.academic.thesis.ui.service.IdempotencyService;
 import org.fenixedu.academic.thesis.ui.service.ParticipantLabelService;
+import org.fenixedu.academic.thesis.ui.service.ParticipantsPayloadReader;
+import org.fenixedu.academic.thesis.ui.service.RecentProposalsService;
 import org.fenixedu.academic.thesis.ui.service.ThesisProposalsService;
 import org.fenixedu.bennu.core.groups.DynamicGroup;
 import org.fenixedu.bennu.core.security.Authenticate;
@@ -51,14 +58,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import pt.ist.fenixframework.FenixFramework;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
-
 @SpringApplication(group = "thesisCreators | activeStudents | #managers", path = "thesisProposals",
         title = "application.title.thesis", hint = "Thesis")
 @SpringFunctionality(app = ThesisProposalsController.class, title = "title.thesisProposal.management",
@@ -69,6 +74,18 @@ public class ThesisProposalsController {
     @Autowired
     ThesisProposalsService service;
 
+    @Autowired
+    DuplicateProposalService duplicateService;
+
+    @Autowired
+    RecentProposalsService recentProposalsService;
+
+    @Autowired
+    ContentVersionService contentVersionService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
     @Autowired(required = false)
     ParticipantLabelService participantLabelService;
 
@@ -83,7 +100,24 @@ public class ThesisProposalsController {
     @RequestMapping(method = RequestMethod.GET)
     public String listProposals(Model model, @RequestParam(required = false) ExecutionYear executionYear, @RequestParam(
             required = false) Boolean isVisible, @RequestParam(required = false) Boolean isAttributed, @RequestParam(
-            required = false) Boolean hasCandidacy) {
+            required = false) Boolean hasCandidacy, WebRequest request, HttpServletResponse response) {
+
+        if (executionYear != null) {
+            List<String> keys =
+                    service.getThesisProposalsConfigurations(Authenticate.getUser()).stream()
+                            .filter(configuration -> executionYear.equals(configuration.getExecutionDegree().getExecutionYear()))
+                            .map(ThesisProposalsConfiguration::getExternalId).collect(Collectors.toList());
+
+            if (contentVersionService.checkNotModified(request, response, keys, getBaseView())) {
+                return null;
+            }
+        }
+
+        return listProposals(model, executionYear, isVisible, isAttributed, hasCandidacy);
+    }
+
+    public String listProposals(Model model, ExecutionYear executionYear, Boolean isVisible, Boolean isAttributed,
+            Boolean hasCandidacy) {
 
         List<ExecutionYear> executionYears = service.getThesisProposalsConfigurationsExecutionYears(Authenticate.getUser());
 
@@ -123,6 +157,7 @@ public class ThesisProposalsController {
         modelAndview.addObject("participantTypeList", service.getThesisProposalParticipantTypes());
 
         modelAndview.addObject("action", getBaseView() + "/create");
+        modelAndview.addObject("idempotencyKey", idempotencyService.newKey());
 
         return modelAndview;
     }
@@ -130,27 +165,34 @@ public class ThesisProposalsController {
     @RequestMapping(value = "/create", method = RequestMethod.POST)
     public ModelAndView createThesisProposals(@ModelAttribute ThesisProposalBean proposalBean,
             @RequestParam String participantsJson, @RequestParam String externalsJson,
-            @RequestParam Set<ThesisProposalsConfiguration> thesisProposalsConfigurations, Model model) {
+            @RequestParam Set<ThesisProposalsConfiguration> thesisProposalsConfigurations, Model model,
+            HttpServletRequest request) {
 
         try {
-            if (thesisProposalsConfigurations == null || thesisProposalsConfigurations.isEmpty()) {
-                throw new UnexistentConfigurationException();
-            }
+            ThesisProposal thesisProposal = idempotencyService.execute(request, () -> {
+                if (thesisProposalsConfigurations == null || thesisProposalsConfigurations.isEmpty()) {
+                    throw new UnexistentConfigurationException();
+                }
 
-            ThesisProposalsConfiguration base = thesisProposalsConfigurations.iterator().next();
+                ThesisProposalsConfiguration base = thesisProposalsConfigurations.iterator().next();
 
-            for (ThesisProposalsConfiguration configuration : thesisProposalsConfigurations) {
-                if (!base.isEquivalent(configuration)) {
-                    throw new UnequivalentThesisConfigurationsException(base, configuration);
+                for (ThesisProposalsConfiguration configuration : thesisProposalsConfigurations) {
+                    if (!base.isEquivalent(configuration)) {
+                        throw new UnequivalentThesisConfigurationsException(base, configuration);
+                    }
                 }
-            }
 
-            if (!base.getProposalPeriod().containsNow()) {
-                throw new OutOfProposalPeriodException();
-            }
+                if (!base.getProposalPeriod().containsNow()) {
+                    throw new OutOfProposalPeriodException();
+                }
 
-            proposalBean.setThesisProposalsConfigurations(thesisProposalsConfigurations);
-            service.createThesisProposal(proposalBean, participantsJson, externalsJson);
+                List<ThesisProposalParticipantBean> participants =
+                        ParticipantsPayloadReader.read(participantsJson, externalsJson);
+
+                proposalBean.setThesisProposalsConfigurations(thesisProposalsConfigurations);
+                return service.createThesisProposal(proposalBean, participants);
+            });
+            model.addAttribute("duplicateProposals", duplicateService.findDuplicates(thesisProposal));
         } catch (ThesisProposalException exception) {
             model.addAttribute("error", exception.getClass().getSimpleName());
             model.addAttribute("action", getBaseView() + "/create");
@@ -164,6 +206,7 @@ public class ThesisProposalsController {
         model.addAttribute("configurations", service.getCurrentThesisProposalsConfigurations());
         model.addAttribute("participantTypeList", service.getThesisProposalParticipantTypes());
         model.addAttribute("command", proposalBean);
+        model.addAttribute("idempotencyKey", idempotencyService.newKey());
         return new ModelAndView("proposals/create", model.asMap());
     }
 
@@ -251,18 +294,10 @@ public class ThesisProposalsController {
 
         ThesisProposal thesisProposal = FenixFramework.getDomainObject(thesisProposalBean.getExternalId());
 
-        JsonParser parser = new JsonParser();
-
         try {
-            if (participantsJson == null || participantsJson.length() == 0) {
-                throw new UnexistentThesisParticipantException();
-            }
-
-            JsonArray participantsArray = (JsonArray) parser.parse(participantsJson);
-            JsonArray externalsArray = (JsonArray) parser.parse(externalsJson);
+            List<ThesisProposalParticipantBean> participants = ParticipantsPayloadReader.read(participantsJson, externalsJson);
 
-            service.editThesisProposal(Authenticate.getUser(), thesisProposalBean, thesisProposal, participantsArray,
-                    externalsArray);
+            service.editThesisProposal(Authenticate.getUser(), thesisProposalBean, thesisProposal, participants);
             redirectAttrs.addAttribute("configuration", configuration != null ? configuration.getExternalId() : null);
             return new ModelAndView("redirect:/" + getBaseView());
         } catch (ThesisProposalException exception) {
@@ -287,7 +322,18 @@ public class ThesisProposalsController {
     }
 
     @RequestMapping(value = "/manage/{oid}", method = RequestMethod.GET)
-    public ModelAndView manageCandidacies(@PathVariable("oid") ThesisProposal thesisProposal, Model model) {
+    public ModelAndView manageCandidacies(@PathVariable("oid") ThesisProposal thesisProposal, Model model,
+            WebRequest request, HttpServletResponse response) {
+
+        Set<String> keys =
+                thesisProposal.getThesisConfigurationSet().stream().map(ThesisProposalsConfiguration::getExternalId)
+                        .collect(Collectors.toSet());
+
+        if (contentVersionService.checkNotModified(request, response, keys,
+                getBaseView() + "/manage " + thesisProposal.getExternalId())) {
+            return null;
+        }
+
         ModelAndView view = new ModelAndView("thesisCandidacies/manage");
         view.addObject("thesisProposal", thesisProposal);
         view.addObject("baseAction", getBaseView());
@@ -298,9 +344,11 @@ public class ThesisProposalsController {
     }
 
     @RequestMapping(value = "/transpose", method = RequestMethod.GET)
-    public String listOldProposals(Model model) {
+    public String listOldProposals(Model model, @RequestParam(required = false, defaultValue = "0") int page) {
         model.addAttribute("baseAction", getBaseView());
-        model.addAttribute("recentProposals", service.getRecentProposals(Authenticate.getUser()));
+        model.addAttribute("page", page);
+        model.addAttribute("pagesCount", recentProposalsService.getPagesCount(Authenticate.getUser()));
+        model.addAttribute("recentProposals", recentProposalsService.getRecentProposals(Authenticate.getUser(), page));
         return "proposals/old";
     }
 
@@ -0,0 +1,148 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.ProposalsLogBucket;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.AssignmentTimeline;
+import org.joda.time.DateTime;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Reconstructs the state of the proposals and candidacies of a configuration at a given moment by replaying the
+ * structured events of the {@link ProposalsLog}. Timelines are kept in memory for a while, so scrubbing through a
+ * candidacy period only reads the log once, and later requests only read the entries written since.
+ */
+@Service
+public class AssignmentHistoryService {
+
+    private static final Comparator<ProposalsLog> COMPARATOR_OLDEST_FIRST = Comparator.comparing(ProposalsLog::getTimestamp)
+            .thenComparing(ProposalsLog::getExternalId);
+
+    private final Cache<String, AssignmentTimeline> timelines = CacheBuilder.newBuilder().maximumSize(16)
+            .expireAfterAccess(30, TimeUnit.MINUTES).build();
+
+    @Atomic(mode = TxMode.READ)
+    public JsonObject getStateAt(ThesisProposalsConfiguration configuration, DateTime timestamp) {
+        AssignmentTimeline timeline = getTimeline(configuration);
+
+        synchronized (timeline) {
+            if (timeline.getLoadedUntil() == null || timestamp.isAfter(timeline.getLoadedUntil())) {
+                load(configuration, timeline);
+            }
+            return toJson(timestamp, timeline.getStateAt(timestamp), configuration.getLogsCompactedAt());
+        }
+    }
+
+    private synchronized AssignmentTimeline getTimeline(ThesisProposalsConfiguration configuration) {
+        Set<String> proposals =
+                configuration.getThesisProposalSet().stream().map(ThesisProposal::getExternalId).collect(Collectors.toSet());
+
+        AssignmentTimeline timeline = timelines.getIfPresent(configuration.getExternalId());
+        // Proposals added to the configuration bring along events that were not loaded
+        if (timeline == null || !timeline.getProposals().equals(proposals)) {
+            timeline = new AssignmentTimeline(proposals);
+            timelines.put(configuration.getExternalId(), timeline);
+        }
+        return timeline;
+    }
+
+    private void load(ThesisProposalsConfiguration configuration, AssignmentTimeline timeline) {
+        DateTime now = new DateTime();
+        AssignmentTimeline.Event last = timeline.getLastEvent();
+        DateTime first =
+                timeline.getLoadedUntil() != null ? timeline.getLoadedUntil() : configuration.getProposalPeriod().getStart();
+
+        List<ProposalsLog> entries = new ArrayList<ProposalsLog>();
+
+        ProposalsLogBucket bucket = ProposalsLogBucket.getLatest();
+        for (; bucket != null && bucket.getEnd().isAfter(first); bucket = bucket.getPrevious()) {
+            bucket.getProposalsLogs().filter(entry -> entry.getEventType() != null).filter(timeline::isRelevant)
+                    .filter(entry -> last == null || isAfter(entry, last)).forEach(entries::add);
+        }
+
+        entries.sort(COMPARATOR_OLDEST_FIRST);
+        timeline.append(entries.stream().map(AssignmentTimeline.Event::new).collect(Collectors.toList()), now);
+    }
+
+    private static boolean isAfter(ProposalsLog entry, AssignmentTimeline.Event event) {
+        int diff = entry.getTimestamp().compareTo(event.getTimestamp());
+        return diff > 0 || (diff == 0 && entry.getExternalId().compareTo(event.getExternalId()) > 0);
+    }
+
+    /**
+     * Serializes a state with the identifiers kept in the events, since the proposals and candidacies may no longer exist.
+     * Compacting the log of a configuration drops the intermediate updates of its candidacies, so states before then are
+     * flagged as incomplete.
+     */
+    private static JsonObject toJson(DateTime timestamp, AssignmentTimeline.State state, DateTime compactedAt) {
+        JsonArray proposals = new JsonArray();
+        for (Map.Entry<String, Boolean> entry : state.getHiddenByProposal().entrySet()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("externalId", entry.getKey());
+            json.addProperty("hidden", entry.getValue());
+            proposals.add(json);
+        }
+
+        JsonArray candidacies = new JsonArray();
+        for (Map.Entry<String, AssignmentTimeline.Candidacy> entry : state.getCandidacies().entrySet()) {
+            AssignmentTimeline.Candidacy candidacy = entry.getValue();
+            Registration registration = FenixFramework.getDomainObject(candidacy.getRegistration());
+
+            JsonObject json = new JsonObject();
+            json.addProperty("externalId", entry.getKey());
+            json.addProperty("proposal", candidacy.getProposal());
+            json.addProperty("registration", candidacy.getRegistration());
+            json.addProperty("studentNumber", registration.getStudent().getNumber());
+            json.addProperty("preference", candidacy.getPreferenceNumber());
+            json.addProperty("accepted", candidacy.isAccepted());
+            candidacies.add(json);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", timestamp.toString());
+        json.addProperty("complete", compactedAt == null || !timestamp.isBefore(compactedAt));
+        json.addProperty("logsCompactedAt", compactedAt != null ? compactedAt.toString() : null);
+        json.addProperty("eventsReplayed", state.getEventsReplayed());
+        json.add("proposals", proposals);
+        json.add("candidacies", candidacies);
+        return json;
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.AssignmentSnapshot;
+import org.springframework.stereotype.Service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Simulates candidacy acceptances over an {@link AssignmentSnapshot}, following the same rules as
+ * {@link ThesisProposalsService#accept} and {@link ThesisProposalsService#revoke}, without writing to the domain.
+ */
+@Service
+public class AssignmentSimulationService {
+
+    public static final String OPERATION_ACCEPT = "accept";
+    public static final String OPERATION_REVOKE = "revoke";
+
+    public JsonObject simulate(ThesisProposalsConfiguration configuration, JsonArray operations) {
+        AssignmentSnapshot snapshot = new AssignmentSnapshot(configuration);
+        boolean[] accepted = snapshot.copyAccepted();
+
+        JsonArray bumps = new JsonArray();
+        JsonArray ignored = new JsonArray();
+
+        for (JsonElement elem : operations) {
+            String externalId = elem.getAsJsonObject().get("externalId").getAsString();
+            String operation = elem.getAsJsonObject().get("operation").getAsString();
+
+            Integer candidacy = snapshot.getCandidacy(externalId);
+
+            if (candidacy == null) {
+                ignored.add(elem);
+            } else if (OPERATION_ACCEPT.equals(operation)) {
+                accept(snapshot, accepted, candidacy, bumps);
+            } else if (OPERATION_REVOKE.equals(operation)) {
+                accepted[candidacy] = false;
+            } else {
+                ignored.add(elem);
+            }
+        }
+
+        return result(snapshot, accepted, bumps, ignored);
+    }
+
+    private void accept(AssignmentSnapshot snapshot, boolean[] accepted, int candidacy, JsonArray bumps) {
+        int proposal = snapshot.getProposal(candidacy);
+        int registration = snapshot.getRegistration(candidacy);
+
+        for (int other : snapshot.getProposalCandidacies(proposal)) {
+            if (other != candidacy && accepted[other]) {
+                accepted[other] = false;
+                bumps.add(bumpToJson(snapshot, other, "displaced"));
+            }
+        }
+
+        accepted[candidacy] = true;
+
+        for (int other : snapshot.getRegistrationCandidacies(registration)) {
+            if (accepted[other] && snapshot.getPreferenceNumber(other) > snapshot.getPreferenceNumber(candidacy)) {
+                bumps.add(bumpToJson(snapshot, other, "superseded"));
+            }
+        }
+    }
+
+    private JsonObject result(AssignmentSnapshot snapshot, boolean[] accepted, JsonArray bumps, JsonArray ignored) {
+        boolean[] assignedProposals = new boolean[snapshot.getProposalsCount()];
+        JsonArray assignments = new JsonArray();
+        JsonArray unassigned = new JsonArray();
+
+        for (int registration = 0; registration < snapshot.getRegistrationsCount(); registration++) {
+            int best = -1;
+            for (int candidacy : snapshot.getRegistrationCandidacies(registration)) {
+                if (accepted[candidacy]
+                        && (best == -1 || snapshot.getPreferenceNumber(candidacy) < snapshot.getPreferenceNumber(best))) {
+                    best = candidacy;
+                }
+            }
+
+            if (best == -1) {
+                unassigned.add(registrationToJson(snapshot, registration));
+            } else {
+                assignedProposals[snapshot.getProposal(best)] = true;
+                assignments.add(candidacyToJson(snapshot, best));
+            }
+        }
+
+        JsonArray emptyProposals = new JsonArray();
+        for (int proposal = 0; proposal < assignedProposals.length; proposal++) {
+            if (!assignedProposals[proposal]) {
+                emptyProposals.add(proposalToJson(snapshot, proposal));
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("assignments", assignments);
+        json.add("bumps", bumps);
+        json.add("emptyProposals", emptyProposals);
+        json.add("unassignedStudents", unassigned);
+        json.add("ignored", ignored);
+        return json;
+    }
+
+    private JsonObject bumpToJson(AssignmentSnapshot snapshot, int candidacy, String reason) {
+        JsonObject json = candidacyToJson(snapshot, candidacy);
+        json.addProperty("reason", reason);
+        return json;
+    }
+
+    private JsonObject candidacyToJson(AssignmentSnapshot snapshot, int candidacy) {
+        JsonObject json = registrationToJson(snapshot, snapshot.getRegistration(candidacy));
+        json.addProperty("candidacy", snapshot.getCandidacyExternalId(candidacy));
+        json.addProperty("preference", snapshot.getPreferenceNumber(candidacy));
+        json.add("proposal", proposalToJson(snapshot, snapshot.getProposal(candidacy)));
+        return json;
+    }
+
+    private JsonObject registrationToJson(AssignmentSnapshot snapshot, int registration) {
+        JsonObject json = new JsonObject();
+        json.addProperty("registration", snapshot.getRegistrationExternalId(registration));
+        json.addProperty("studentNumber", snapshot.getStudentNumber(registration));
+        return json;
+    }
+
+    private JsonObject proposalToJson(AssignmentSnapshot snapshot, int proposal) {
+        JsonObject json = new JsonObject();
+        json.addProperty("externalId", snapshot.getProposalExternalId(proposal));
+        json.addProperty("identifier", snapshot.getProposalIdentifier(proposal));
+        return json;
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.CandidacyEligibilitySnapshot;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.CandidacyEligibility;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.joda.time.Duration;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps a {@link CandidacyEligibility} snapshot per registration, so the approved credits of a student are computed once
+ * for all the candidacies they submit instead of on every submission. Snapshots stored by
+ * {@link EligibilityPrecomputationService} are used when a node has none. A snapshot is taken again when the active
+ * curricular plan of the registration changes, and snapshots expire after a few hours so that the pages listing
+ * proposals eventually show newly approved credits. Snapshots only serve those pages: submissions are always checked
+ * against freshly computed credits, see {@link #check}.
+ */
+@Service
+public class CandidacyEligibilityService {
+
+    private static final Duration STORED_SNAPSHOT_MAX_AGE = Duration.standardDays(2);
+
+    private final Cache<String, CandidacyEligibility> eligibilities = CacheBuilder.newBuilder().maximumSize(50000)
+            .expireAfterWrite(6, TimeUnit.HOURS).build();
+
+    public CandidacyEligibility getEligibility(Registration registration) {
+        CandidacyEligibility eligibility = eligibilities.getIfPresent(registration.getExternalId());
+
+        if (eligibility == null) {
+            eligibility = getStoredEligibility(registration);
+        }
+
+        if (eligibility == null || !eligibility.isCurrent(registration)) {
+            eligibility = new CandidacyEligibility(registration);
+            put(registration, eligibility);
+        }
+
+        return eligibility;
+    }
+
+    private CandidacyEligibility getStoredEligibility(Registration registration) {
+        CandidacyEligibilitySnapshot snapshot = registration.getCandidacyEligibilitySnapshot();
+
+        if (snapshot == null || snapshot.getComputedAt().plus(STORED_SNAPSHOT_MAX_AGE).isBeforeNow()) {
+            return null;
+        }
+
+        CandidacyEligibility eligibility = new CandidacyEligibility(snapshot);
+        put(registration, eligibility);
+        return eligibility;
+    }
+
+    /**
+     * Checks the credits of a registration for a submission. Approved credits can also decrease, when a grade is
+     * annulled or an enrolment removed, so neither accepting nor rejecting relies on a snapshot: the credits are always
+     * computed again, and the snapshot replaced so that the pages show them.
+     */
+    public void check(Registration registration, ThesisProposalsConfiguration configuration) throws ThesisProposalException {
+        CandidacyEligibility eligibility = new CandidacyEligibility(registration);
+        put(registration, eligibility);
+        eligibility.check(configuration);
+    }
+
+    public void put(Registration registration, CandidacyEligibility eligibility) {
+        eligibilities.put(registration.getExternalId(), eligibility);
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacyEvent;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.ConfigurationStatistics;
+import org.fenixedu.bennu.signals.DomainObjectEvent;
+import org.fenixedu.bennu.signals.Signal;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the {@link ConfigurationStatistics} of each configuration whose statistics were requested. Statistics are
+ * computed by a full scan on the first request, and are then updated from the proposal and candidacy signals, handled
+ * after the emitting transaction commits, by reading just the proposal or candidacy that changed. Those signals only
+ * reach the node that made the write, and a handler that fails leaves the counts off, so statistics are also computed
+ * again once they are {@link #MAX_AGE_MINUTES} minutes old.
+ */
+@Service
+public class ConfigurationStatisticsService {
+
+    private static final int MAX_AGE_MINUTES = 10;
+
+    private final MaintainedSnapshots<ConfigurationStatistics> statistics = new MaintainedSnapshots<ConfigurationStatistics>(
+            CacheBuilder.newBuilder().expireAfterWrite(MAX_AGE_MINUTES, TimeUnit.MINUTES)
+                    .<String, ConfigurationStatistics> build().asMap());
+
+    @PostConstruct
+    public void registerHandlers() {
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_CREATED,
+                (DomainObjectEvent<ThesisProposal> event) -> updateProposal(event.getInstance().getExternalId()));
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_EDITED,
+                (DomainObjectEvent<ThesisProposal> event) -> updateProposal(event.getInstance().getExternalId()));
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_DELETED,
+                (DomainObjectEvent<ThesisProposal> event) -> removeProposal(event.getInstance().getExternalId()));
+
+        Signal.registerWithoutTransaction(StudentThesisCandidacy.SIGNAL_CREATED, this::updateCandidacy);
+        Signal.registerWithoutTransaction(StudentThesisCandidacy.SIGNAL_EDITED, this::updateCandidacy);
+        Signal.registerWithoutTransaction(StudentThesisCandidacy.SIGNAL_ACCEPTED, this::updateCandidacy);
+        Signal.registerWithoutTransaction(StudentThesisCandidacy.SIGNAL_REVOKED, this::updateCandidacy);
+        Signal.registerWithoutTransaction(StudentThesisCandidacy.SIGNAL_DELETED, this::updateCandidacy);
+    }
+
+    public ConfigurationStatistics getStatistics(ThesisProposalsConfiguration configuration) {
+        return statistics.get(configuration.getExternalId(), this::readStatistics);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private ConfigurationStatistics readStatistics(String configurationId) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+
+        ConfigurationStatistics configurationStatistics = new ConfigurationStatistics();
+        for (ThesisProposal proposal : configuration.getThesisProposalSet()) {
+            configurationStatistics.putProposal(proposal.getExternalId(), !proposal.getHidden(), getAdvisors(proposal));
+            for (StudentThesisCandidacy candidacy : proposal.getStudentThesisCandidacySet()) {
+                configurationStatistics.putCandidacy(candidacy.getExternalId(), candidacy.getPreferenceNumber(),
+                        candidacy.getAcceptedByAdvisor());
+            }
+        }
+        return configurationStatistics;
+    }
+
+    private void updateProposal(String proposalId) {
+        statistics.modified();
+        readProposal(proposalId);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private void readProposal(String proposalId) {
+        ThesisProposal proposal = FenixFramework.getDomainObject(proposalId);
+
+        boolean visible = !proposal.getHidden();
+        Map<String, String> advisors = getAdvisors(proposal);
+        Set<String> configurationIds =
+                proposal.getThesisConfigurationSet().stream().map(ThesisProposalsConfiguration::getExternalId)
+                        .collect(Collectors.toSet());
+
+        statistics.asMap().forEach((configurationId, configurationStatistics) -> {
+            if (configurationIds.contains(configurationId)) {
+                configurationStatistics.putProposal(proposalId, visible, advisors);
+            } else {
+                configurationStatistics.removeProposal(proposalId);
+            }
+        });
+    }
+
+    private void removeProposal(String proposalId) {
+        statistics.modified();
+        statistics.asMap().values().forEach(configurationStatistics -> configurationStatistics.removeProposal(proposalId));
+    }
+
+    private void updateCandidacy(StudentThesisCandidacyEvent event) {
+        statistics.modified();
+        readCandidacy(event);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private void readCandidacy(StudentThesisCandidacyEvent event) {
+        StudentThesisCandidacy candidacy = FenixFramework.getDomainObject(event.getCandidacyId());
+        boolean exists = FenixFramework.isDomainObjectValid(candidacy);
+
+        for (String configurationId : event.getConfigurationIds()) {
+            ConfigurationStatistics configurationStatistics = statistics.asMap().get(configurationId);
+            if (configurationStatistics == null) {
+                continue;
+            }
+
+            if (exists) {
+                configurationStatistics.putCandidacy(event.getCandidacyId(), candidacy.getPreferenceNumber(),
+                        candidacy.getAcceptedByAdvisor());
+            } else {
+                configurationStatistics.removeCandidacy(event.getCandidacyId());
+            }
+        }
+    }
+
+    /**
+     * Participants of the proposal with the heaviest participant type, which is the one of its advisors, by user id.
+     */
+    private Map<String, String> getAdvisors(ThesisProposal proposal) {
+        int advisorWeight =
+                proposal.getThesisProposalParticipantSet().stream()
+                        .mapToInt(participant -> participant.getThesisProposalParticipantType().getWeight()).max().orElse(0);
+
+        Map<String, String> advisors = new HashMap<String, String>();
+        proposal.getThesisProposalParticipantSet().stream()
+                .filter(participant -> participant.getThesisProposalParticipantType().getWeight() == advisorWeight)
+                .forEach(participant -> advisors.put(getAdvisorId(participant), participant.getName()));
+        return advisors;
+    }
+
+    private static String getAdvisorId(ThesisProposalParticipant participant) {
+        return participant.getUser() != null ? participant.getUser().getExternalId() : participant.getExternalUser()
+                .getExternalId();
+    }
+
+}
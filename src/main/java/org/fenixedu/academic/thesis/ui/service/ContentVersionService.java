@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.domain.student.Student;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacyEvent;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.VersionCounter;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.fenixedu.bennu.signals.DomainObjectEvent;
+import org.fenixedu.bennu.signals.Signal;
+import org.fenixedu.commons.i18n.I18N;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.DomainObject;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes a content version for configurations and students from their {@link VersionCounter}s, and uses it to answer
+ * repeated requests for the proposal and candidacy pages with <code>304 Not Modified</code>. The counters are incremented
+ * by the proposal and candidacy signals within the emitting transaction, so every node computes the same version, and
+ * any write, whoever makes it, changes it.
+ */
+@Service
+public class ContentVersionService {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    @PostConstruct
+    public void registerHandlers() {
+        Signal.register(ThesisProposal.SIGNAL_CREATED,
+                (DomainObjectEvent<ThesisProposal> event) -> incrementProposals(event.getInstance()));
+        Signal.register(ThesisProposal.SIGNAL_EDITED,
+                (DomainObjectEvent<ThesisProposal> event) -> incrementProposals(event.getInstance()));
+
+        Signal.register(StudentThesisCandidacy.SIGNAL_CREATED, this::incrementCandidacies);
+        Signal.register(StudentThesisCandidacy.SIGNAL_EDITED, this::incrementCandidacies);
+        Signal.register(StudentThesisCandidacy.SIGNAL_ACCEPTED, this::incrementCandidacies);
+        Signal.register(StudentThesisCandidacy.SIGNAL_REVOKED, this::incrementCandidacies);
+        Signal.register(StudentThesisCandidacy.SIGNAL_DELETED, this::incrementCandidacies);
+    }
+
+    // A deleted proposal increments the counters of its configurations itself, since the signal is emitted afterwards
+    private void incrementProposals(ThesisProposal proposal) {
+        proposal.getThesisConfigurationSet().forEach(configuration -> VersionCounter.incrementProposals(configuration, proposal));
+    }
+
+    private void incrementCandidacies(StudentThesisCandidacyEvent event) {
+        Registration registration = FenixFramework.getDomainObject(event.getRegistrationId());
+
+        for (String configurationId : event.getConfigurationIds()) {
+            ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+            VersionCounter.incrementCandidacies(configuration, registration);
+        }
+        VersionCounter.incrementCandidacies(registration);
+    }
+
+    /**
+     * Sets the ETag header of a page depending on the content of the given configurations and students, and checks it
+     * against the request.
+     *
+     * @param keys external ids of the configurations and students the page shows
+     * @param variant what else the page depends on besides the request parameters, the user and the locale
+     * @return true if the client has the current version of the page, in which case the response is already a
+     *         <code>304 Not Modified</code> and the page must not be rendered
+     */
+    public boolean checkNotModified(WebRequest request, HttpServletResponse response, Collection<String> keys, String variant) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putString(getContentVersion(keys), StandardCharsets.UTF_8);
+        hasher.putString(Strings.nullToEmpty(variant), StandardCharsets.UTF_8);
+        hasher.putString(Authenticate.getUser() != null ? Authenticate.getUser().getExternalId() : "", StandardCharsets.UTF_8);
+        hasher.putString(I18N.getLocale().toLanguageTag(), StandardCharsets.UTF_8);
+        request.getParameterMap().entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> hasher.putString(entry.getKey() + "=" + Arrays.toString(entry.getValue()), StandardCharsets.UTF_8));
+
+        response.setHeader("Cache-Control", "private, no-cache");
+        return request.checkNotModified("\"" + hasher.hash() + "\"");
+    }
+
+    /**
+     * Returns a value that changes whenever the content of any of the given configurations and students changes.
+     *
+     * @param keys external ids of configurations and students
+     */
+    @Atomic(mode = TxMode.READ)
+    public String getContentVersion(Collection<String> keys) {
+        StringBuilder builder = new StringBuilder();
+        for (String key : keys) {
+            builder.append(key).append('=').append(getVersion(key)).append(' ');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The number of writes made to the proposals of a configuration, which is what the proposal catalogue and indexes
+     * are built from.
+     */
+    @Atomic(mode = TxMode.READ)
+    public long getProposalsVersion(String configurationId) {
+        return VersionCounter.getProposalsVersion(FenixFramework.getDomainObject(configurationId));
+    }
+
+    private HashCode getVersion(String key) {
+        DomainObject object = FenixFramework.getDomainObject(key);
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        if (object instanceof ThesisProposalsConfiguration) {
+            putConfiguration(hasher, (ThesisProposalsConfiguration) object);
+        } else if (object instanceof Student) {
+            putStudent(hasher, (Student) object);
+        }
+
+        return hasher.hash();
+    }
+
+    private void putConfiguration(Hasher hasher, ThesisProposalsConfiguration configuration) {
+        putString(hasher, configuration.getProposalPeriod());
+        putString(hasher, configuration.getCandidacyPeriod());
+        hasher.putInt(configuration.getMaxThesisCandidaciesByStudent()).putInt(configuration.getMaxThesisProposalsByUser());
+        hasher.putInt(configuration.getMinECTS1stCycle()).putInt(configuration.getMinECTS2ndCycle());
+        hasher.putLong(VersionCounter.getProposalsVersion(configuration));
+        hasher.putLong(VersionCounter.getCandidaciesVersion(configuration));
+    }
+
+    private void putStudent(Hasher hasher, Student student) {
+        hasher.putInt(student.getRegistrationsSet().size());
+        student.getRegistrationsSet().stream().sorted(Comparator.comparing(Registration::getExternalId)).forEach(registration -> {
+            putString(hasher, registration.getExternalId());
+            hasher.putLong(VersionCounter.getCandidaciesVersion(registration));
+        });
+    }
+
+    private static void putString(Hasher hasher, Object value) {
+        String string = value != null ? value.toString() : "";
+        hasher.putInt(string.length()).putString(string, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.fenixedu.academic.domain.ExecutionYear;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.domain.VersionCounter;
+import org.fenixedu.academic.thesis.ui.bean.NearDuplicateIndex;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Finds proposals of the same execution year whose text is nearly the same, using a {@link NearDuplicateIndex} per
+ * execution year. Indexes are built on first use and built again on the next use after the proposals of any
+ * configuration of the execution year change, like the indexes of {@link ProposalSearchService}.
+ */
+@Service
+public class DuplicateProposalService {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final VersionedSnapshots<NearDuplicateIndex> indexes = new VersionedSnapshots<NearDuplicateIndex>(
+            executionYearId -> readProposalsVersion(executionYearId));
+
+    /**
+     * @return the proposals of the same execution year that are likely duplicates of the given one, most similar first
+     */
+    public List<ThesisProposal> findDuplicates(ThesisProposal proposal) {
+        String proposalId = proposal.getExternalId();
+        String executionYearId = getExecutionYear(proposal).getExternalId();
+
+        Map<String, Double> similar =
+                getIndex(executionYearId).findSimilar(NearDuplicateIndex.signature(getText(proposal)),
+                        NearDuplicateIndex.DEFAULT_THRESHOLD);
+        similar.remove(proposalId);
+
+        return similar.entrySet().stream().sorted(Entry.<String, Double> comparingByValue().reversed())
+                .map(entry -> FenixFramework.<ThesisProposal> getDomainObject(entry.getKey()))
+                .filter(FenixFramework::isDomainObjectValid).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the groups of likely duplicates among the proposals of the configuration, including the proposals of other
+     *         configurations of the same execution year they are similar to
+     */
+    public JsonArray groupDuplicates(ThesisProposalsConfiguration configuration) {
+        NearDuplicateIndex index = getIndex(configuration.getExecutionDegree().getExecutionYear().getExternalId());
+
+        List<Set<String>> groups =
+                index.group(configuration.getThesisProposalSet().stream().map(ThesisProposal::getExternalId)
+                        .collect(Collectors.toList()), NearDuplicateIndex.DEFAULT_THRESHOLD);
+
+        JsonArray result = new JsonArray();
+        for (Set<String> group : groups) {
+            JsonArray proposals = new JsonArray();
+            for (String proposalId : group) {
+                ThesisProposal proposal = FenixFramework.getDomainObject(proposalId);
+                if (FenixFramework.isDomainObjectValid(proposal)) {
+                    JsonObject json = new JsonObject();
+                    json.addProperty("externalId", proposal.getExternalId());
+                    json.addProperty("identifier", proposal.getIdentifier());
+                    json.addProperty("title", proposal.getTitle());
+                    json.addProperty("configuration", proposal.getSingleThesisProposalsConfiguration().getPresentationName());
+                    proposals.add(json);
+                }
+            }
+            result.add(proposals);
+        }
+        return result;
+    }
+
+    private NearDuplicateIndex getIndex(String executionYearId) {
+        return indexes.get(executionYearId, this::buildIndex);
+    }
+
+    private NearDuplicateIndex buildIndex(String executionYearId) {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        for (Entry<String, long[]> entry : readSignatures(executionYearId).entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+        return index;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private Map<String, long[]> readSignatures(String executionYearId) {
+        ExecutionYear executionYear = FenixFramework.getDomainObject(executionYearId);
+
+        Map<String, long[]> signatures = new HashMap<String, long[]>();
+        getConfigurations(executionYear).flatMap(configuration -> configuration.getThesisProposalSet().stream())
+                .forEach(proposal -> signatures.putIfAbsent(proposal.getExternalId(), NearDuplicateIndex.signature(getText(proposal))));
+        return signatures;
+    }
+
+    /**
+     * Combines the proposals versions of the configurations of the execution year, so that it also changes when a
+     * configuration is archived or restored.
+     */
+    @Atomic(mode = TxMode.READ)
+    private long readProposalsVersion(String executionYearId) {
+        ExecutionYear executionYear = FenixFramework.getDomainObject(executionYearId);
+
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        getConfigurations(executionYear).sorted(Comparator.comparing(ThesisProposalsConfiguration::getExternalId)).forEach(
+                configuration -> hasher.putString(configuration.getExternalId(), StandardCharsets.UTF_8).putLong(
+                        VersionCounter.getProposalsVersion(configuration)));
+        return hasher.hash().asLong();
+    }
+
+    private static Stream<ThesisProposalsConfiguration> getConfigurations(ExecutionYear executionYear) {
+        return ThesisProposalsSystem.getInstance().getThesisProposalsConfigurationSet().stream()
+                .filter(configuration -> configuration.getExecutionDegree().getExecutionYear() == executionYear);
+    }
+
+    private static ExecutionYear getExecutionYear(ThesisProposal proposal) {
+        return proposal.getSingleThesisProposalsConfiguration().getExecutionDegree().getExecutionYear();
+    }
+
+    private static String getText(ThesisProposal proposal) {
+        return String.join(" ", Strings.nullToEmpty(proposal.getTitle()), Strings.nullToEmpty(proposal.getGoals()),
+                Strings.nullToEmpty(proposal.getRequirements()), Strings.nullToEmpty(proposal.getObservations()));
+    }
+
+}
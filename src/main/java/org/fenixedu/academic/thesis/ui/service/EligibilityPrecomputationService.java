@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.StudentCurricularPlan;
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.CandidacyEligibilitySnapshot;
+import org.fenixedu.academic.thesis.domain.EligibilityPrecomputationJob;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.CandidacyEligibility;
+import org.fenixedu.academic.thesis.ui.bean.EligibilityPrecomputationBean;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Takes and stores the {@link CandidacyEligibility} snapshot of every active registration of the execution degree of a
+ * configuration, so that eligibility is known on every node before candidacies open. Registrations are split in chunks,
+ * each written in its own transaction by a fork-join pool. Progress is read back from the stored snapshots.
+ */
+@Service
+public class EligibilityPrecomputationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EligibilityPrecomputationService.class);
+
+    private static final int CHUNK_SIZE = 100;
+
+    private static final Duration STALL_TIMEOUT = Duration.standardMinutes(15);
+
+    @Autowired
+    BackgroundJobService backgroundJobService;
+
+    @Autowired
+    CandidacyEligibilityService eligibilityService;
+
+    @Atomic(mode = TxMode.READ)
+    public EligibilityPrecomputationBean getProgress(ThesisProposalsConfiguration configuration) {
+        EligibilityPrecomputationJob job = configuration.getEligibilityPrecomputationJob();
+        if (job == null) {
+            return null;
+        }
+
+        DateTime lastProgress = job.getStarted();
+        EligibilityPrecomputationBean progress = new EligibilityPrecomputationBean(job.getTotal());
+
+        for (Registration registration : getRegistrations(configuration)) {
+            CandidacyEligibilitySnapshot snapshot = registration.getCandidacyEligibilitySnapshot();
+            if (snapshot != null && !snapshot.getComputedAt().isBefore(job.getStarted())) {
+                boolean eligible = new CandidacyEligibility(snapshot).isEligible(configuration);
+                progress.increment(registration.getDegree().getSigla(), eligible);
+                lastProgress = snapshot.getComputedAt().isAfter(lastProgress) ? snapshot.getComputedAt() : lastProgress;
+            }
+        }
+
+        if (job.getFinished()) {
+            progress.setState(job.getFailed() ? EligibilityPrecomputationBean.State.FAILED
+                    : EligibilityPrecomputationBean.State.DONE);
+        } else if (lastProgress.plus(STALL_TIMEOUT).isBeforeNow()) {
+            progress.setState(EligibilityPrecomputationBean.State.STALLED);
+        }
+
+        return progress;
+    }
+
+    public EligibilityPrecomputationBean precompute(ThesisProposalsConfiguration configuration) {
+        DateTime started = startJob(configuration);
+
+        if (started != null) {
+            final String configurationId = configuration.getExternalId();
+            backgroundJobService.execute(() -> run(configurationId, started));
+        }
+
+        return getProgress(configuration);
+    }
+
+    /**
+     * Starts a new run unless one is already running on any node, and returns when it started, or <code>null</code> if
+     * none was started.
+     */
+    @Atomic(mode = TxMode.WRITE)
+    private DateTime startJob(ThesisProposalsConfiguration configuration) {
+        EligibilityPrecomputationJob job = configuration.getEligibilityPrecomputationJob();
+
+        if (job == null) {
+            job = new EligibilityPrecomputationJob(configuration);
+        } else if (getProgress(configuration).isRunning()) {
+            return null;
+        } else {
+            job.restart();
+        }
+
+        job.setTotal(getRegistrations(configuration).size());
+        return job.getStarted();
+    }
+
+    private void run(String configurationId, DateTime started) {
+        try {
+            List<Callable<Void>> tasks =
+                    Lists.partition(getRegistrationIds(configurationId), CHUNK_SIZE).stream()
+                            .map(chunk -> (Callable<Void>) () -> precomputeChunk(chunk)).collect(Collectors.toList());
+
+            for (Future<Void> future : backgroundJobService.getPool().invokeAll(tasks)) {
+                future.get();
+            }
+
+            finish(configurationId, started, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("Eligibility precomputation failed for configuration " + configurationId, e);
+            finish(configurationId, started, true);
+        }
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private List<String> getRegistrationIds(String configurationId) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+        return getRegistrations(configuration).stream().map(Registration::getExternalId).collect(Collectors.toList());
+    }
+
+    private static List<Registration> getRegistrations(ThesisProposalsConfiguration configuration) {
+        return configuration.getExecutionDegree().getDegreeCurricularPlan().getStudentCurricularPlansSet().stream()
+                .map(StudentCurricularPlan::getRegistration).filter(Registration::isActive).distinct()
+                .collect(Collectors.toList());
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private Void precomputeChunk(List<String> registrations) {
+        for (String registrationId : registrations) {
+            Registration registration = FenixFramework.getDomainObject(registrationId);
+            CandidacyEligibility eligibility = new CandidacyEligibility(registration);
+
+            CandidacyEligibilitySnapshot.getInstance(registration).update(eligibility.getStudentCurricularPlanId(),
+                    eligibility.getFirstCycleCredits(), eligibility.getSecondCycleCredits(), eligibility.getComputedAt());
+            eligibilityService.put(registration, eligibility);
+        }
+
+        return null;
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private void finish(String configurationId, DateTime started, boolean failed) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+        EligibilityPrecomputationJob job = configuration.getEligibilityPrecomputationJob();
+
+        if (job != null && job.getStarted().equals(started)) {
+            job.finish(failed);
+        }
+    }
+
+}
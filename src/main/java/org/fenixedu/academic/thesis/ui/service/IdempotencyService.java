@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.fenixedu.academic.thesis.ui.exception.IdempotencyKeyReusedException;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.springframework.stereotype.Service;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Runs write requests at most once per idempotency key. The key is sent in the {@value #HEADER} header or in the
+ * {@value #PARAMETER} parameter, and is scoped to the user and the request path. Retries of a request, including those
+ * arriving while the original is still running, get the original result or exception without another write. The result
+ * is kept along with a hash of the request parameters, and a request reusing a key with other parameters is rejected.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String PARAMETER = "idempotencyKey";
+
+    private final Cache<String, Result> results = CacheBuilder.newBuilder().maximumSize(10000)
+            .expireAfterWrite(10, TimeUnit.MINUTES).build();
+
+    public interface Write<T> {
+        T write() throws ThesisProposalException;
+    }
+
+    public String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    public <T> T execute(HttpServletRequest request, Write<T> write) throws ThesisProposalException {
+        String key = request.getHeader(HEADER) != null ? request.getHeader(HEADER) : request.getParameter(PARAMETER);
+        if (Strings.isNullOrEmpty(key)) {
+            return write.write();
+        }
+
+        User user = Authenticate.getUser();
+        return execute((user != null ? user.getExternalId() : "") + " " + request.getRequestURI(), key,
+                request.getParameterMap(), write);
+    }
+
+    /**
+     * Runs a write at most once for the given key within the given scope.
+     *
+     * @throws IdempotencyKeyReusedException if the key was already used in the scope with other parameters
+     */
+    public <T> T execute(String scope, String key, Map<String, String[]> parameters, Write<T> write)
+            throws ThesisProposalException {
+        HashCode parametersHash = hash(parameters);
+
+        Result result;
+        try {
+            result = results.get(scope + " " + key, () -> Result.of(parametersHash, write));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            // Unexpected failures are not kept, so a retry runs the write again
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (!result.parametersHash.equals(parametersHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+
+        return result.get();
+    }
+
+    private static HashCode hash(Map<String, String[]> parameters) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        for (Map.Entry<String, String[]> parameter : new TreeMap<String, String[]>(parameters).entrySet()) {
+            if (PARAMETER.equals(parameter.getKey())) {
+                continue;
+            }
+
+            hasher.putString(parameter.getKey(), StandardCharsets.UTF_8).putInt(parameter.getValue().length);
+            for (String value : parameter.getValue()) {
+                hasher.putString(Strings.nullToEmpty(value), StandardCharsets.UTF_8).putByte((byte) 0);
+            }
+        }
+
+        return hasher.hash();
+    }
+
+    private static class Result {
+
+        private final HashCode parametersHash;
+        private final Object value;
+        private final ThesisProposalException exception;
+
+        private Result(HashCode parametersHash, Object value, ThesisProposalException exception) {
+            this.parametersHash = parametersHash;
+            this.value = value;
+            this.exception = exception;
+        }
+
+        private static Result of(HashCode parametersHash, Write<?> write) {
+            try {
+                return new Result(parametersHash, write.write(), null);
+            } catch (ThesisProposalException e) {
+                return new Result(parametersHash, null, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T get() throws ThesisProposalException {
+            if (exception != null) {
+                throw exception;
+            }
+            return (T) value;
+        }
+    }
+
+}
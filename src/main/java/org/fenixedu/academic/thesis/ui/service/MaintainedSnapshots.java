@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Snapshots of domain state built on first use and then kept up to date by signal handlers, which run after the
+ * emitting transaction commits. A handler may run while a snapshot is being built and miss it, so handlers call
+ * {@link #modified()} before updating the published snapshots, and a snapshot built across a modification is dropped
+ * and built again.
+ */
+public class MaintainedSnapshots<V> {
+
+    private final ConcurrentMap<String, V> snapshots;
+
+    private final AtomicLong modifications = new AtomicLong();
+
+    public MaintainedSnapshots() {
+        this(new ConcurrentHashMap<String, V>());
+    }
+
+    /**
+     * @param snapshots where snapshots are published, such as the map view of a cache that evicts them
+     */
+    public MaintainedSnapshots(ConcurrentMap<String, V> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Returns the published snapshot for a key, building it if there is none. The builder runs outside of any lock, so
+     * concurrent callers may build the same snapshot, and only one of them is published.
+     */
+    public V get(String key, Function<String, V> builder) {
+        while (true) {
+            V snapshot = snapshots.get(key);
+            if (snapshot != null) {
+                return snapshot;
+            }
+
+            long start = modifications.get();
+            V built = builder.apply(key);
+
+            // Published before checking, so that a handler starting after the check already sees it
+            V published = snapshots.putIfAbsent(key, built);
+            if (published != null) {
+                return published;
+            }
+            if (start == modifications.get()) {
+                return built;
+            }
+
+            snapshots.remove(key, built);
+        }
+    }
+
+    public void modified() {
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * The published snapshots, for handlers to update.
+     */
+    public ConcurrentMap<String, V> asMap() {
+        return snapshots;
+    }
+
+}
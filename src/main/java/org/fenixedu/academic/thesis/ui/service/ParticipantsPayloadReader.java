@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fenixedu.academic.thesis.ui.bean.ThesisProposalParticipantBean;
+import org.fenixedu.academic.thesis.ui.exception.IllegalParticipantTypeException;
+import org.fenixedu.academic.thesis.ui.exception.InvalidPercentageException;
+import org.fenixedu.academic.thesis.ui.exception.InvalidUserException;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.exception.UnexistentExternalEmailException;
+import org.fenixedu.academic.thesis.ui.exception.UnexistentThesisExternalParticipantException;
+import org.fenixedu.academic.thesis.ui.exception.UnexistentThesisParticipantException;
+import org.fenixedu.bennu.core.domain.User;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads the participants and external participants posted by the proposal forms into
+ * {@link ThesisProposalParticipantBean}s. Both payloads are streamed and validated in a single pass, and usernames are
+ * only resolved once the whole payload is known to be well formed, each distinct username being looked up once.
+ */
+public class ParticipantsPayloadReader {
+
+    private final List<ThesisProposalParticipantBean> participants = new ArrayList<ThesisProposalParticipantBean>();
+    private final Map<ThesisProposalParticipantBean, String> usernames = new HashMap<ThesisProposalParticipantBean, String>();
+
+    private String userId;
+    private String name;
+    private String email;
+    private String userType;
+    private Integer percentage;
+
+    private ParticipantsPayloadReader() {
+    }
+
+    public static List<ThesisProposalParticipantBean> read(String participantsJson, String externalsJson)
+            throws ThesisProposalException {
+        ParticipantsPayloadReader reader = new ParticipantsPayloadReader();
+
+        try {
+            reader.readArray(participantsJson, false);
+            reader.readArray(externalsJson, true);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+
+        if (reader.participants.isEmpty()) {
+            throw new UnexistentThesisParticipantException();
+        }
+
+        reader.resolveUsers();
+        return reader.participants;
+    }
+
+    private void readArray(String json, boolean external) throws IOException, ThesisProposalException {
+        if (json == null || json.isEmpty()) {
+            return;
+        }
+
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                readObject(reader);
+                participants.add(external ? toExternalBean() : toUserBean());
+            }
+            reader.endArray();
+        }
+    }
+
+    private void readObject(JsonReader reader) throws IOException, ThesisProposalException {
+        userId = name = email = userType = null;
+        percentage = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (field) {
+            case "userId":
+                userId = reader.nextString();
+                break;
+            case "name":
+                name = reader.nextString();
+                break;
+            case "email":
+                email = reader.nextString();
+                break;
+            case "userType":
+                userType = reader.nextString();
+                break;
+            case "percentage":
+                try {
+                    percentage = reader.nextInt();
+                } catch (NumberFormatException e) {
+                    throw new InvalidPercentageException();
+                }
+                break;
+            default:
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (percentage == null) {
+            throw new InvalidPercentageException();
+        }
+
+        if (percentage > 100 || percentage < 0) {
+            throw new InvalidPercentageException(percentage);
+        }
+    }
+
+    private ThesisProposalParticipantBean toUserBean() throws ThesisProposalException {
+        if (userType == null || userType.isEmpty()) {
+            throw new IllegalParticipantTypeException(userId != null ? User.findByUsername(userId) : null);
+        }
+
+        if (userId == null || userId.isEmpty()) {
+            throw new UnexistentThesisParticipantException();
+        }
+
+        ThesisProposalParticipantBean participantBean = new ThesisProposalParticipantBean(null, userType, percentage);
+        usernames.put(participantBean, userId);
+        return participantBean;
+    }
+
+    private ThesisProposalParticipantBean toExternalBean() throws ThesisProposalException {
+        if (userType == null || userType.isEmpty()) {
+            throw new IllegalParticipantTypeException();
+        }
+
+        if (name == null || name.isEmpty()) {
+            throw new UnexistentThesisExternalParticipantException();
+        }
+
+        if (email == null || email.isEmpty()) {
+            throw new UnexistentExternalEmailException();
+        }
+
+        return new ThesisProposalParticipantBean(name, email, userType, percentage);
+    }
+
+    private void resolveUsers() throws InvalidUserException {
+        Map<String, User> users = new HashMap<String, User>();
+
+        for (Map.Entry<ThesisProposalParticipantBean, String> entry : usernames.entrySet()) {
+            User user = users.computeIfAbsent(entry.getValue(), User::findByUsername);
+
+            if (user == null) {
+                throw new InvalidUserException();
+            }
+
+            entry.getKey().setUser(user);
+        }
+    }
+
+}
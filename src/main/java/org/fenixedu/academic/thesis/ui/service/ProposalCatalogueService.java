@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.ExecutionDegree;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.ProposalCatalogue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+/**
+ * Publishes a {@link ProposalCatalogue} for each configuration whose proposals were listed to students. Catalogues are
+ * built on first use and replaced, never modified, on the next use after the proposals of the configuration change, on
+ * any node, as counted by {@link ContentVersionService#getProposalsVersion(String)}. Every student request reads the
+ * same shared instance, and the requests that find a changed version share a single build.
+ */
+@Service
+public class ProposalCatalogueService {
+
+    @Autowired
+    ContentVersionService contentVersionService;
+
+    @Autowired(required = false)
+    ParticipantLabelService participantLabelService;
+
+    private final VersionedSnapshots<ProposalCatalogue> catalogues = new VersionedSnapshots<ProposalCatalogue>(
+            configurationId -> contentVersionService.getProposalsVersion(configurationId));
+
+    public ProposalCatalogue getCatalogue(ThesisProposalsConfiguration configuration) {
+        return catalogues.get(configuration.getExternalId(),
+                configurationId -> new ProposalCatalogue(readEntries(configurationId)));
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private List<ProposalCatalogue.Entry> readEntries(String configurationId) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+
+        return configuration.getThesisProposalSet().stream().filter(proposal -> !proposal.getHidden()).map(this::toEntry)
+                .collect(Collectors.toList());
+    }
+
+    private ProposalCatalogue.Entry toEntry(ThesisProposal proposal) {
+        List<ProposalCatalogue.Participant> participants =
+                proposal.getSortedParticipants()
+                        .stream()
+                        .map(participant -> new ProposalCatalogue.Participant(participant.getName(), participant
+                                .getParticipationPercentage(), participantLabelService != null ? participantLabelService
+                                .getInstitutionRole(participant) : null)).collect(Collectors.toList());
+
+        String degrees =
+                proposal.getExecutionDegreeSet().stream().map(ExecutionDegree::getDegree).map(degree -> degree.getSigla())
+                        .collect(Collectors.joining(", "));
+
+        return new ProposalCatalogue.Entry(proposal.getExternalId(), proposal.getIdentifier(), proposal.getTitle(),
+                proposal.getObservations(), proposal.getRequirements(), proposal.getGoals(), proposal.getLocalization(),
+                degrees, participants);
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Reads the rows of a proposals import file one at a time, either as CSV with a header row or as one JSON object per
+ * line. Every row is returned as a map from column name to value, where participants and externals hold the same JSON
+ * arrays posted by the proposal forms and configurations holds space separated configuration ids.
+ */
+public class ProposalImportReader implements Closeable {
+
+    public static final String TITLE = "title";
+    public static final String OBSERVATIONS = "observations";
+    public static final String REQUIREMENTS = "requirements";
+    public static final String GOALS = "goals";
+    public static final String LOCALIZATION = "localization";
+    public static final String CONFIGURATIONS = "configurations";
+    public static final String PARTICIPANTS = "participants";
+    public static final String EXTERNALS = "externals";
+
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final JsonParser parser = new JsonParser();
+
+    private List<String> header;
+    private int nextLine = 1;
+    private int line;
+
+    public ProposalImportReader(Reader reader, Format format) {
+        this.reader = new BufferedReader(reader);
+        this.format = format;
+    }
+
+    /**
+     * The line of the file where the last row returned by {@link #next()} starts.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the next row, or null at the end of the file. A malformed JSON row is consumed before the
+     * {@link JsonParseException} is thrown, so reading may go on with the following row.
+     */
+    public Map<String, String> next() throws IOException {
+        return format == Format.CSV ? nextCsvRow() : nextJsonRow();
+    }
+
+    private Map<String, String> nextJsonRow() throws IOException {
+        String text;
+        do {
+            line = nextLine++;
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+        } while (text.trim().isEmpty());
+
+        JsonElement element = parser.parse(text);
+        if (!element.isJsonObject()) {
+            throw new JsonParseException("Expected a JSON object at line " + line);
+        }
+
+        Map<String, String> row = new HashMap<String, String>();
+        for (Map.Entry<String, JsonElement> entry : ((JsonObject) element).entrySet()) {
+            JsonElement value = entry.getValue();
+
+            if (value.isJsonNull()) {
+                continue;
+            } else if (value.isJsonPrimitive()) {
+                row.put(entry.getKey(), value.getAsString());
+            } else if (CONFIGURATIONS.equals(entry.getKey()) && value.isJsonArray()) {
+                row.put(entry.getKey(), StreamSupport.stream(value.getAsJsonArray().spliterator(), false)
+                        .map(JsonElement::getAsString).collect(Collectors.joining(" ")));
+            } else {
+                row.put(entry.getKey(), value.toString());
+            }
+        }
+        return row;
+    }
+
+    private Map<String, String> nextCsvRow() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRecord();
+            if (names == null) {
+                return null;
+            }
+            header = names.stream().map(name -> name.trim().toLowerCase()).collect(Collectors.toList());
+        }
+
+        List<String> values;
+        do {
+            line = nextLine;
+            values = readCsvRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).trim().isEmpty());
+
+        Map<String, String> row = new HashMap<String, String>();
+        for (int i = 0; i < Math.min(header.size(), values.size()); i++) {
+            row.put(header.get(i), values.get(i));
+        }
+        return row;
+    }
+
+    private List<String> readCsvRecord() throws IOException {
+        List<String> values = new ArrayList<String>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                nextLine++;
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.accessControl.CoordinatorGroup;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipantType;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.ui.bean.ProposalImportReport;
+import org.fenixedu.academic.thesis.ui.bean.ThesisProposalBean;
+import org.fenixedu.academic.thesis.ui.bean.ThesisProposalParticipantBean;
+import org.fenixedu.academic.thesis.ui.exception.IllegalParticipantTypeException;
+import org.fenixedu.academic.thesis.ui.exception.MaxNumberThesisProposalsException;
+import org.fenixedu.academic.thesis.ui.exception.OutOfProposalPeriodException;
+import org.fenixedu.academic.thesis.ui.exception.ParticipantNotIncludedException;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.exception.TotalParticipantPercentageException;
+import org.fenixedu.academic.thesis.ui.exception.UnequivalentThesisConfigurationsException;
+import org.fenixedu.academic.thesis.ui.exception.UnexistentConfigurationException;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.fenixedu.bennu.signals.DomainObjectEvent;
+import org.fenixedu.bennu.signals.Signal;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.base.Strings;
+import com.google.gson.JsonParseException;
+
+/**
+ * Creates thesis proposals in bulk from a {@link ProposalImportReader} file. The whole file is validated in a single
+ * read transaction with the same rules as {@link ThesisProposalsService#createThesisProposal}, counting the proposals of
+ * each advisor once per configuration instead of once per proposal. Proposals are only created when no row has errors,
+ * in chunked write transactions, using a block of identifiers reserved up front. Should one of those transactions fail,
+ * the chunks already written stay created and every row that was not is reported with the line where it starts.
+ */
+@Service
+public class ProposalImportService {
+
+    private static final int CHUNK_SIZE = 50;
+
+    private static final String ERROR_PREFIX = "error.thesisProposal.";
+    private static final String ERROR_MALFORMED_ROW = "error.thesisProposal.import.malformedRow";
+    private static final String ERROR_EMPTY_TITLE = "error.thesisProposal.import.emptyTitle";
+    private static final String ERROR_NOT_CREATED = "error.thesisProposal.import.notCreated";
+
+    public ProposalImportReport importProposals(Reader input, ProposalImportReader.Format format) throws IOException {
+        ProposalImportReport report = new ProposalImportReport();
+
+        List<ThesisProposalBean> proposals;
+        List<Integer> lines = new ArrayList<Integer>();
+        try (ProposalImportReader reader = new ProposalImportReader(input, format)) {
+            proposals = validate(reader, Authenticate.getUser(), report, lines);
+        }
+
+        if (report.hasErrors() || proposals.isEmpty()) {
+            return report;
+        }
+
+        int identifier = reserveIdentifiers(proposals.size());
+        for (int start = 0; start < proposals.size(); start += CHUNK_SIZE) {
+            List<ThesisProposalBean> chunk = proposals.subList(start, Math.min(start + CHUNK_SIZE, proposals.size()));
+            try {
+                create(chunk, identifier).forEach(report::addCreated);
+            } catch (RuntimeException e) {
+                lines.subList(start, lines.size()).forEach(line -> report.addError(line, ERROR_NOT_CREATED));
+                return report;
+            }
+            identifier += chunk.size();
+        }
+
+        return report;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private List<ThesisProposalBean> validate(ProposalImportReader reader, User creator, ProposalImportReport report,
+            List<Integer> lines) throws IOException {
+        List<ThesisProposalBean> proposals = new ArrayList<ThesisProposalBean>();
+        Map<ThesisProposalsConfiguration, Map<User, Integer>> proposalsByUser =
+                new HashMap<ThesisProposalsConfiguration, Map<User, Integer>>();
+
+        while (true) {
+            Map<String, String> row;
+            try {
+                row = reader.next();
+            } catch (JsonParseException e) {
+                report.incrementRows();
+                report.addError(reader.getLine(), ERROR_MALFORMED_ROW);
+                continue;
+            }
+
+            if (row == null) {
+                return proposals;
+            }
+
+            report.incrementRows();
+
+            if (Strings.isNullOrEmpty(row.get(ProposalImportReader.TITLE))) {
+                report.addError(reader.getLine(), ERROR_EMPTY_TITLE);
+                continue;
+            }
+
+            try {
+                proposals.add(readProposal(row, creator, proposalsByUser));
+                lines.add(reader.getLine());
+            } catch (ThesisProposalException e) {
+                report.addError(reader.getLine(), ERROR_PREFIX + e.getClass().getSimpleName());
+            } catch (JsonParseException e) {
+                report.addError(reader.getLine(), ERROR_MALFORMED_ROW);
+            }
+        }
+    }
+
+    private ThesisProposalBean readProposal(Map<String, String> row, User creator,
+            Map<ThesisProposalsConfiguration, Map<User, Integer>> proposalsByUser) throws ThesisProposalException {
+
+        Set<ThesisProposalsConfiguration> configurations = readConfigurations(row.get(ProposalImportReader.CONFIGURATIONS));
+
+        List<ThesisProposalParticipantBean> participants =
+                ParticipantsPayloadReader.read(row.get(ProposalImportReader.PARTICIPANTS),
+                        row.get(ProposalImportReader.EXTERNALS));
+
+        for (ThesisProposalParticipantBean participant : participants) {
+            if (!isParticipantType(participant.getParticipantTypeExternalId())) {
+                throw new IllegalParticipantTypeException(participant.getUser());
+            }
+        }
+
+        if (participants.stream().mapToInt(ThesisProposalParticipantBean::getPercentage).sum() > 100) {
+            throw new TotalParticipantPercentageException();
+        }
+
+        Set<User> users =
+                participants.stream().map(ThesisProposalParticipantBean::getUser).filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+
+        if (!users.contains(creator)
+                && !configurations.stream().anyMatch(
+                        configuration -> CoordinatorGroup.get(configuration.getExecutionDegree().getDegree())
+                                .isMember(creator))) {
+            throw new ParticipantNotIncludedException();
+        }
+
+        checkProposalsLimit(configurations, users, proposalsByUser);
+
+        ThesisProposalBean proposal = new ThesisProposalBean();
+        proposal.setTitle(row.get(ProposalImportReader.TITLE));
+        proposal.setObservations(row.get(ProposalImportReader.OBSERVATIONS));
+        proposal.setRequirements(row.get(ProposalImportReader.REQUIREMENTS));
+        proposal.setGoals(row.get(ProposalImportReader.GOALS));
+        proposal.setLocalization(row.get(ProposalImportReader.LOCALIZATION));
+        proposal.setThesisProposalsConfigurations(configurations);
+        proposal.setThesisProposalParticipantsBean(new HashSet<ThesisProposalParticipantBean>(participants));
+        return proposal;
+    }
+
+    private Set<ThesisProposalsConfiguration> readConfigurations(String ids) throws ThesisProposalException {
+        Set<ThesisProposalsConfiguration> configurations = new HashSet<ThesisProposalsConfiguration>();
+
+        for (String id : Strings.nullToEmpty(ids).trim().split("\\s+")) {
+            Object configuration = readDomainObject(id);
+            if (!(configuration instanceof ThesisProposalsConfiguration)) {
+                throw new UnexistentConfigurationException();
+            }
+            configurations.add((ThesisProposalsConfiguration) configuration);
+        }
+
+        ThesisProposalsConfiguration base = configurations.iterator().next();
+        for (ThesisProposalsConfiguration configuration : configurations) {
+            if (!base.isEquivalent(configuration)) {
+                throw new UnequivalentThesisConfigurationsException(base, configuration);
+            }
+        }
+
+        if (!base.getProposalPeriod().containsNow()) {
+            throw new OutOfProposalPeriodException();
+        }
+
+        return configurations;
+    }
+
+    private boolean isParticipantType(String id) {
+        return readDomainObject(id) instanceof ThesisProposalParticipantType;
+    }
+
+    private Object readDomainObject(String id) {
+        if (Strings.isNullOrEmpty(id)) {
+            return null;
+        }
+
+        try {
+            return FenixFramework.getDomainObject(id);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void checkProposalsLimit(Set<ThesisProposalsConfiguration> configurations, Set<User> users,
+            Map<ThesisProposalsConfiguration, Map<User, Integer>> proposalsByUser) throws MaxNumberThesisProposalsException {
+
+        for (ThesisProposalsConfiguration configuration : configurations) {
+            if (configuration.getMaxThesisProposalsByUser() == -1) {
+                continue;
+            }
+
+            Map<User, Integer> counts =
+                    proposalsByUser.computeIfAbsent(configuration, ThesisProposalsConfiguration::countProposalsByUser);
+            for (User user : users) {
+                if (counts.getOrDefault(user, 0) >= configuration.getMaxThesisProposalsByUser()) {
+                    throw new MaxNumberThesisProposalsException(null);
+                }
+            }
+        }
+
+        for (ThesisProposalsConfiguration configuration : configurations) {
+            Map<User, Integer> counts = proposalsByUser.get(configuration);
+            if (counts != null) {
+                users.forEach(user -> counts.merge(user, 1, Integer::sum));
+            }
+        }
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private int reserveIdentifiers(int count) {
+        return ThesisProposalsSystem.getInstance().reserveProposalIdentifiers(count);
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private List<String> create(List<ThesisProposalBean> chunk, int firstIdentifier) {
+        List<String> identifiers = new ArrayList<String>();
+
+        int identifier = firstIdentifier;
+        for (ThesisProposalBean proposalBean : chunk) {
+            ThesisProposal thesisProposal = new ThesisProposalBean.Builder(proposalBean).build(String.valueOf(identifier++));
+            Signal.emit(ThesisProposal.SIGNAL_CREATED, new DomainObjectEvent<ThesisProposal>(thesisProposal));
+            identifiers.add(thesisProposal.getIdentifier());
+        }
+
+        return identifiers;
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.ProposalSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Keeps a {@link ProposalSearchIndex} for each configuration that has been searched. Indexes are built on the first
+ * search and built again on the next search after the proposals of the configuration change, on any node, as counted
+ * by {@link ContentVersionService#getProposalsVersion(String)}.
+ */
+@Service
+public class ProposalSearchService {
+
+    public static final int MAX_RESULTS = 50;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int GOALS_WEIGHT = 2;
+    private static final int DEFAULT_WEIGHT = 1;
+
+    @Autowired
+    ContentVersionService contentVersionService;
+
+    private final VersionedSnapshots<ProposalSearchIndex> indexes = new VersionedSnapshots<ProposalSearchIndex>(
+            configurationId -> contentVersionService.getProposalsVersion(configurationId));
+
+    public JsonArray search(ThesisProposalsConfiguration configuration, String query, boolean includeHidden) {
+        List<String> proposals = getIndex(configuration.getExternalId()).search(query, MAX_RESULTS);
+        return toJson(proposals, includeHidden);
+    }
+
+    private ProposalSearchIndex getIndex(String configurationId) {
+        return indexes.get(configurationId, this::buildIndex);
+    }
+
+    private ProposalSearchIndex buildIndex(String configurationId) {
+        ProposalSearchIndex index = new ProposalSearchIndex();
+        for (Map.Entry<String, Map<String, Integer>> entry : readTermWeights(configurationId).entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+        return index;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private Map<String, Map<String, Integer>> readTermWeights(String configurationId) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+
+        Map<String, Map<String, Integer>> termWeights = new HashMap<String, Map<String, Integer>>();
+        for (ThesisProposal proposal : configuration.getThesisProposalSet()) {
+            termWeights.put(proposal.getExternalId(), getTermWeights(proposal));
+        }
+        return termWeights;
+    }
+
+    private Map<String, Integer> getTermWeights(ThesisProposal proposal) {
+        Map<String, Integer> termWeights = new HashMap<String, Integer>();
+        ProposalSearchIndex.addTerms(termWeights, proposal.getTitle(), TITLE_WEIGHT);
+        ProposalSearchIndex.addTerms(termWeights, proposal.getGoals(), GOALS_WEIGHT);
+        ProposalSearchIndex.addTerms(termWeights, proposal.getRequirements(), DEFAULT_WEIGHT);
+        ProposalSearchIndex.addTerms(termWeights, proposal.getObservations(), DEFAULT_WEIGHT);
+        ProposalSearchIndex.addTerms(termWeights, proposal.getLocalization(), DEFAULT_WEIGHT);
+        return termWeights;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private JsonArray toJson(List<String> proposals, boolean includeHidden) {
+        JsonArray result = new JsonArray();
+
+        for (String proposalId : proposals) {
+            ThesisProposal proposal = FenixFramework.getDomainObject(proposalId);
+
+            if (!FenixFramework.isDomainObjectValid(proposal) || (!includeHidden && proposal.getHidden())) {
+                continue;
+            }
+
+            JsonObject json = new JsonObject();
+            json.addProperty("externalId", proposal.getExternalId());
+            json.addProperty("identifier", proposal.getIdentifier());
+            json.addProperty("title", proposal.getTitle());
+            result.add(json);
+        }
+
+        return result;
+    }
+
+}
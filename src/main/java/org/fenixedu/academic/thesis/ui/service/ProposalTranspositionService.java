@@ -0,0 +1,221 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.ui.bean.TranspositionReport;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.fenixedu.academic.thesis.ui.exception.UnequivalentThesisConfigurationsException;
+import org.fenixedu.academic.thesis.ui.exception.UnexistentConfigurationException;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.fenixedu.bennu.signals.DomainObjectEvent;
+import org.fenixedu.bennu.signals.Signal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Transposes the proposals of a configuration into other configurations in bulk. Proposals already present in the
+ * targets (same title and advisors) and proposals that would exceed the advisors' limits are skipped, so the job can be
+ * safely run again. Proposals are created in chunks, each in its own transaction, with identifiers reserved up front.
+ */
+@Service
+public class ProposalTranspositionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProposalTranspositionService.class);
+
+    private static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    BackgroundJobService backgroundJobService;
+
+    private final Map<String, TranspositionReport> reportByConfiguration = new ConcurrentHashMap<String, TranspositionReport>();
+
+    public TranspositionReport getProgress(ThesisProposalsConfiguration source) {
+        return reportByConfiguration.get(source.getExternalId());
+    }
+
+    public synchronized TranspositionReport transpose(ThesisProposalsConfiguration source,
+            Set<ThesisProposalsConfiguration> targets, Set<ThesisProposal> selection, boolean dryRun)
+            throws ThesisProposalException {
+
+        TranspositionReport current = getProgress(source);
+        if (!dryRun && current != null && current.isRunning()) {
+            return current;
+        }
+
+        if (targets == null || targets.isEmpty()) {
+            throw new UnexistentConfigurationException();
+        }
+
+        ThesisProposalsConfiguration base = targets.iterator().next();
+        for (ThesisProposalsConfiguration target : targets) {
+            if (!base.isEquivalent(target)) {
+                throw new UnequivalentThesisConfigurationsException(base, target);
+            }
+        }
+
+        TranspositionReport report = plan(source, targets, selection, dryRun);
+        if (dryRun) {
+            return report;
+        }
+
+        final List<String> targetIds =
+                targets.stream().map(ThesisProposalsConfiguration::getExternalId).collect(Collectors.toList());
+        final User user = Authenticate.getUser();
+
+        reportByConfiguration.put(source.getExternalId(), report);
+        backgroundJobService.execute(() -> run(report, targetIds, user));
+
+        return report;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private TranspositionReport plan(ThesisProposalsConfiguration source, Set<ThesisProposalsConfiguration> targets,
+            Set<ThesisProposal> selection, boolean dryRun) {
+
+        Set<String> existing = new HashSet<String>();
+        Map<ThesisProposalsConfiguration, Map<User, Integer>> proposalsByUser =
+                new HashMap<ThesisProposalsConfiguration, Map<User, Integer>>();
+
+        for (ThesisProposalsConfiguration target : targets) {
+            target.getThesisProposalSet().forEach(proposal -> existing.add(getKey(proposal)));
+            proposalsByUser.put(target, target.countProposalsByUser());
+        }
+
+        Collection<ThesisProposal> proposals =
+                selection == null || selection.isEmpty() ? source.getThesisProposalSet() : selection;
+
+        List<TranspositionReport.Item> items = new ArrayList<TranspositionReport.Item>();
+
+        proposals.stream().filter(proposal -> proposal.getThesisConfigurationSet().contains(source))
+                .sorted((p1, p2) -> p1.getIdentifier().compareTo(p2.getIdentifier())).forEach(proposal -> {
+                    TranspositionReport.Outcome outcome;
+
+                    if (!existing.add(getKey(proposal))) {
+                        outcome = TranspositionReport.Outcome.ALREADY_TRANSPOSED;
+                    } else if (!withinLimits(proposal, targets, proposalsByUser)) {
+                        outcome = TranspositionReport.Outcome.LIMIT_EXCEEDED;
+                    } else {
+                        outcome = TranspositionReport.Outcome.TRANSPOSE;
+                    }
+
+                    items.add(new TranspositionReport.Item(proposal.getExternalId(), proposal.getIdentifier(), proposal
+                            .getTitle(), outcome));
+                });
+
+        return new TranspositionReport(items, dryRun);
+    }
+
+    private boolean withinLimits(ThesisProposal proposal, Set<ThesisProposalsConfiguration> targets,
+            Map<ThesisProposalsConfiguration, Map<User, Integer>> proposalsByUser) {
+
+        Set<User> users =
+                proposal.getThesisProposalParticipantSet().stream().map(ThesisProposalParticipant::getUser)
+                        .filter(Objects::nonNull).collect(Collectors.toSet());
+
+        for (ThesisProposalsConfiguration target : targets) {
+            int max = target.getMaxThesisProposalsByUser();
+            if (max != -1 && users.stream().anyMatch(user -> proposalsByUser.get(target).getOrDefault(user, 0) >= max)) {
+                return false;
+            }
+        }
+
+        for (ThesisProposalsConfiguration target : targets) {
+            users.forEach(user -> proposalsByUser.get(target).merge(user, 1, Integer::sum));
+        }
+
+        return true;
+    }
+
+    private static String getKey(ThesisProposal proposal) {
+        return proposal.getTitle()
+                + proposal
+                        .getThesisProposalParticipantSet()
+                        .stream()
+                        .map(p -> p.getUser() != null ? p.getUser().getExternalId() : p.getExternalUser().getName() + " "
+                                + p.getExternalUser().getEmail()).sorted().collect(Collectors.joining(";", "[", "]"));
+    }
+
+    private void run(TranspositionReport report, List<String> targetIds, User user) {
+        Authenticate.mock(user);
+        try {
+            List<String> proposals = report.getProposalsToTranspose();
+
+            if (!proposals.isEmpty()) {
+                int identifier = reserveIdentifiers(proposals.size());
+                for (List<String> chunk : Lists.partition(proposals, CHUNK_SIZE)) {
+                    report.addTransposed(transpose(chunk, targetIds, identifier));
+                    identifier += chunk.size();
+                }
+            }
+
+            report.setState(TranspositionReport.State.DONE);
+        } catch (RuntimeException e) {
+            logger.error("Transposition of proposals failed", e);
+            report.setState(TranspositionReport.State.FAILED);
+        } finally {
+            Authenticate.unmock();
+        }
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private int reserveIdentifiers(int count) {
+        return ThesisProposalsSystem.getInstance().reserveProposalIdentifiers(count);
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private int transpose(List<String> proposals, List<String> targetIds, int firstIdentifier) {
+        Set<ThesisProposalsConfiguration> targets =
+                targetIds.stream().map(id -> FenixFramework.<ThesisProposalsConfiguration> getDomainObject(id))
+                        .collect(Collectors.toSet());
+
+        int identifier = firstIdentifier;
+        for (String id : proposals) {
+            ThesisProposal source = FenixFramework.getDomainObject(id);
+            ThesisProposal proposal = new ThesisProposal(String.valueOf(identifier++), source, targets);
+            Signal.emit(ThesisProposal.SIGNAL_CREATED, new DomainObjectEvent<ThesisProposal>(proposal));
+        }
+
+        return proposals.size();
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLog;
+import org.fenixedu.academic.thesis.domain.ProposalsLogBucket;
+import org.fenixedu.academic.thesis.ui.bean.ProposalsLogQuery;
+import org.joda.time.DateTime;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Queries the {@link ProposalsLog}, newest entries first. Queries by candidacy or author only read the entries of that
+ * object, and the remaining ones, including those by proposal, walk the {@link ProposalsLogBucket}s of the time range.
+ * Pages are delimited by an opaque cursor pointing at the last entry returned and its bucket, so paging stays correct
+ * while new entries are written and the next page starts reading at that bucket. Entries written before they were
+ * indexed are only found by author until {@link org.fenixedu.academic.thesis.task.IndexProposalsLogTask} has indexed
+ * them.
+ */
+@Service
+public class ProposalsLogService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public static final String CSV_HEADER =
+            "timestamp,author,action,proposal,candidacy,eventType,eventSubject,eventParent,eventValue\n";
+
+    private static final Comparator<ProposalsLog> COMPARATOR_NEWEST_FIRST = Comparator
+            .comparing(ProposalsLog::getTimestamp).thenComparing(ProposalsLog::getExternalId).reversed();
+
+    @Atomic(mode = TxMode.READ)
+    public JsonObject getPage(ProposalsLogQuery query, String cursor, int limit) {
+        List<ProposalsLog> entries = find(query, cursor, limit);
+
+        JsonArray entriesJson = new JsonArray();
+        entries.forEach(entry -> entriesJson.add(toJson(entry)));
+
+        JsonObject json = new JsonObject();
+        json.add("entries", entriesJson);
+        json.addProperty("nextCursor", entries.size() < limit ? null : getCursor(entries.get(entries.size() - 1)));
+        return json;
+    }
+
+    /**
+     * Writes every entry matching the query as CSV, reading one page per transaction.
+     */
+    public void export(ProposalsLogQuery query, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+
+        String cursor = null;
+        do {
+            List<String> rows = new ArrayList<String>();
+            cursor = readRows(query, cursor, rows);
+
+            for (String row : rows) {
+                writer.write(row);
+            }
+            writer.flush();
+        } while (cursor != null);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private String readRows(ProposalsLogQuery query, String cursor, List<String> rows) {
+        List<ProposalsLog> entries = find(query, cursor, MAX_PAGE_SIZE);
+
+        for (ProposalsLog entry : entries) {
+            rows.add(toCsv(entry));
+        }
+
+        return entries.size() < MAX_PAGE_SIZE ? null : getCursor(entries.get(entries.size() - 1));
+    }
+
+    private List<ProposalsLog> find(ProposalsLogQuery query, String cursor, int limit) {
+        Cursor position = Cursor.parse(cursor);
+
+        Collection<ProposalsLog> source =
+                query.getCandidacy() != null ? query.getCandidacy().getProposalsLogSet() : query.getAuthor() != null ? query
+                        .getAuthor().getLoggerSet() : null;
+
+        if (source != null) {
+            return source.stream().filter(query::matches).filter(position::precedes).sorted(COMPARATOR_NEWEST_FIRST)
+                    .limit(limit).collect(Collectors.toList());
+        }
+
+        List<ProposalsLog> entries = new ArrayList<ProposalsLog>();
+        ProposalsLogBucket bucket = position.bucket != null ? position.bucket : ProposalsLogBucket.getLatest();
+
+        for (; bucket != null && entries.size() < limit; bucket = bucket.getPrevious()) {
+            if (query.getTo() != null && !bucket.getStart().isBefore(query.getTo())) {
+                continue;
+            }
+            if (query.getFrom() != null && !bucket.getEnd().isAfter(query.getFrom())) {
+                break;
+            }
+
+            bucket.getProposalsLogs().filter(query::matches).filter(position::precedes).sorted(COMPARATOR_NEWEST_FIRST)
+                    .limit(limit - entries.size()).forEach(entries::add);
+        }
+
+        return entries;
+    }
+
+    private static String getCursor(ProposalsLog entry) {
+        String cursor = entry.getTimestamp().getMillis() + ":" + entry.getExternalId();
+        return entry.isIndexed() ? cursor + ":" + entry.getProposalsLogShard().getProposalsLogBucket().getExternalId() : cursor;
+    }
+
+    private static class Cursor {
+
+        private final DateTime timestamp;
+        private final String externalId;
+        private final ProposalsLogBucket bucket;
+
+        private Cursor(DateTime timestamp, String externalId, ProposalsLogBucket bucket) {
+            this.timestamp = timestamp;
+            this.externalId = externalId;
+            this.bucket = bucket;
+        }
+
+        private static Cursor parse(String cursor) {
+            String[] parts = Strings.nullToEmpty(cursor).split(":");
+            if (parts.length < 2) {
+                return new Cursor(null, null, null);
+            }
+
+            try {
+                return new Cursor(new DateTime(Long.parseLong(parts[0])), parts[1], parts.length > 2 ? readBucket(parts[2])
+                        : null);
+            } catch (NumberFormatException e) {
+                return new Cursor(null, null, null);
+            }
+        }
+
+        private static ProposalsLogBucket readBucket(String externalId) {
+            try {
+                Object bucket = FenixFramework.getDomainObject(externalId);
+                return bucket instanceof ProposalsLogBucket ? (ProposalsLogBucket) bucket : null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Whether the entry comes after this cursor in the newest first order.
+         */
+        private boolean precedes(ProposalsLog entry) {
+            if (timestamp == null) {
+                return true;
+            }
+
+            int diff = entry.getTimestamp().compareTo(timestamp);
+            return diff < 0 || (diff == 0 && entry.getExternalId().compareTo(externalId) < 0);
+        }
+    }
+
+    private static String getAuthor(ProposalsLog entry) {
+        return entry.getAuthor() != null ? entry.getAuthor().getUsername() : null;
+    }
+
+    public static String toCsv(ProposalsLog entry) {
+        return csv(entry.getTimestamp().toString()) + "," + csv(getAuthor(entry)) + "," + csv(entry.getAction()) + ","
+                + csv(entry.getThesisProposal()) + "," + csv(entry.getCandidacy()) + ","
+                + csv(entry.getEventType() != null ? entry.getEventType().name() : null) + "," + csv(entry.getEventSubject())
+                + "," + csv(entry.getEventParent()) + "," + csv(entry.getEventValue()) + "\n";
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static JsonObject toJson(ProposalsLog entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("externalId", entry.getExternalId());
+        json.addProperty("timestamp", entry.getTimestamp().toString());
+        json.addProperty("author", getAuthor(entry));
+        json.addProperty("action", entry.getAction());
+        json.addProperty("proposal", entry.getThesisProposal());
+        json.addProperty("candidacy", entry.getCandidacy());
+        json.addProperty("compacted", entry.isCompacted());
+        return json;
+    }
+
+}
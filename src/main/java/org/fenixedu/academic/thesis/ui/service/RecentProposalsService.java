@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
+import org.fenixedu.academic.thesis.ui.bean.RecentProposalsIndex;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.signals.DomainObjectEvent;
+import org.fenixedu.bennu.signals.Signal;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Serves the proposals that can be transposed by a user, from a {@link RecentProposalsIndex} per user. Indexes are built
+ * on the first visit and kept up to date by the proposal signals, which only reach the node that made the write, so
+ * they are also dropped a while after being built, bounding how long a change made on another node goes unseen.
+ */
+@Service
+public class RecentProposalsService {
+
+    public static final int PAGE_SIZE = 20;
+
+    private final MaintainedSnapshots<RecentProposalsIndex> indexes = new MaintainedSnapshots<RecentProposalsIndex>(
+            CacheBuilder.newBuilder().maximumSize(2000).expireAfterWrite(10, TimeUnit.MINUTES)
+                    .<String, RecentProposalsIndex> build().asMap());
+
+    @PostConstruct
+    public void registerHandlers() {
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_CREATED,
+                (DomainObjectEvent<ThesisProposal> event) -> reindex(event.getInstance().getExternalId()));
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_EDITED,
+                (DomainObjectEvent<ThesisProposal> event) -> reindex(event.getInstance().getExternalId()));
+        Signal.registerWithoutTransaction(ThesisProposal.SIGNAL_DELETED,
+                (DomainObjectEvent<ThesisProposal> event) -> remove(event.getInstance().getExternalId()));
+    }
+
+    public List<ThesisProposal> getRecentProposals(User user, int page) {
+        return getIndex(user).getPage(page, PAGE_SIZE).stream()
+                .map(proposalId -> FenixFramework.<ThesisProposal> getDomainObject(proposalId)).collect(Collectors.toList());
+    }
+
+    public int getPagesCount(User user) {
+        return (getIndex(user).size() + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    private RecentProposalsIndex getIndex(User user) {
+        return indexes.get(user.getExternalId(), this::readIndex);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private RecentProposalsIndex readIndex(String userId) {
+        User user = FenixFramework.getDomainObject(userId);
+
+        RecentProposalsIndex index = new RecentProposalsIndex();
+        for (ThesisProposalParticipant participant : user.getThesisProposalParticipantSet()) {
+            ThesisProposal proposal = participant.getThesisProposal();
+            index.put(proposal.getExternalId(), proposal.getTitle(), proposal.getSingleThesisProposalsConfiguration()
+                    .getProposalPeriod());
+        }
+        return index;
+    }
+
+    private void reindex(String proposalId) {
+        indexes.modified();
+        updateIndexes(proposalId);
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private void updateIndexes(String proposalId) {
+        ThesisProposal proposal = FenixFramework.getDomainObject(proposalId);
+
+        Set<String> participants =
+                proposal.getThesisProposalParticipantSet().stream().map(ThesisProposalParticipant::getUser)
+                        .filter(Objects::nonNull).map(User::getExternalId).collect(Collectors.toSet());
+
+        indexes.asMap().forEach((userId, index) -> {
+            if (participants.contains(userId)) {
+                index.put(proposalId, proposal.getTitle(), proposal.getSingleThesisProposalsConfiguration().getProposalPeriod());
+            } else {
+                index.remove(proposalId);
+            }
+        });
+    }
+
+    private void remove(String proposalId) {
+        indexes.modified();
+        indexes.asMap().values().forEach(index -> index.remove(proposalId));
+    }
+
+}
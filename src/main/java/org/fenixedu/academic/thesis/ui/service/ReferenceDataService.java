@@ -0,0 +1,150 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.ExecutionDegree;
+import org.fenixedu.academic.domain.ExecutionYear;
+import org.fenixedu.academic.domain.degreeStructure.CycleType;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipantType;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the sorted reference lists shown by the proposal and configuration forms. Participant types are changed by this
+ * module, which invalidates them after every write. Execution years and degrees are created elsewhere, so their lists
+ * are also reloaded once they are an hour old.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final long MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * A value loaded on demand. A load that started before an invalidation is returned to its caller but not kept.
+     */
+    private static final class CachedValue<T> {
+        private final Supplier<T> loader;
+        private long generation;
+        private long loadedAt;
+        private T value;
+
+        private CachedValue(Supplier<T> loader) {
+            this.loader = loader;
+        }
+
+        private T get() {
+            long start;
+            synchronized (this) {
+                if (value != null && System.currentTimeMillis() - loadedAt < MAX_AGE) {
+                    return value;
+                }
+                start = generation;
+            }
+
+            T loaded = loader.get();
+
+            synchronized (this) {
+                if (start == generation) {
+                    value = loaded;
+                    loadedAt = System.currentTimeMillis();
+                }
+            }
+            return loaded;
+        }
+
+        private synchronized void invalidate() {
+            generation++;
+            value = null;
+        }
+    }
+
+    private final CachedValue<List<ThesisProposalParticipantType>> participantTypes =
+            new CachedValue<List<ThesisProposalParticipantType>>(() -> Collections.unmodifiableList(ThesisProposalsSystem
+                    .getInstance().getThesisProposalParticipantTypeSet().stream()
+                    .sorted(ThesisProposalParticipantType.COMPARATOR_BY_WEIGHT).collect(Collectors.toList())));
+
+    private final CachedValue<SortedSet<ExecutionYear>> executionYears = new CachedValue<SortedSet<ExecutionYear>>(() -> {
+        TreeSet<ExecutionYear> executionYears = new TreeSet<ExecutionYear>(ExecutionYear.REVERSE_COMPARATOR_BY_YEAR);
+        executionYears.addAll(Bennu.getInstance().getExecutionYearsSet());
+        return Collections.unmodifiableSortedSet(executionYears);
+    });
+
+    private final CachedValue<List<ExecutionDegree>> executionDegrees = new CachedValue<List<ExecutionDegree>>(
+            () -> Collections.unmodifiableList(Bennu.getInstance().getExecutionDegreesSet().stream()
+                    .sorted(ExecutionDegree.COMPARATOR_BY_DEGREE_NAME).collect(Collectors.toList())));
+
+    private final Cache<String, List<ExecutionDegree>> secondCycleExecutionDegrees = CacheBuilder.newBuilder()
+            .expireAfterWrite(MAX_AGE, TimeUnit.MILLISECONDS).build();
+
+    /**
+     * All participant types, sorted by weight.
+     */
+    public List<ThesisProposalParticipantType> getParticipantTypes() {
+        return participantTypes.get();
+    }
+
+    /**
+     * The participant types that may be chosen for new participants, sorted by weight.
+     */
+    public List<ThesisProposalParticipantType> getActiveParticipantTypes() {
+        return getParticipantTypes().stream().filter(type -> !type.getInactive()).collect(Collectors.toList());
+    }
+
+    public void invalidateParticipantTypes() {
+        participantTypes.invalidate();
+    }
+
+    public SortedSet<ExecutionYear> getExecutionYears() {
+        return executionYears.get();
+    }
+
+    public List<ExecutionDegree> getExecutionDegrees() {
+        return executionDegrees.get();
+    }
+
+    /**
+     * The execution degrees of a year with a second cycle, sorted by degree type, name and year.
+     */
+    public List<ExecutionDegree> getSecondCycleExecutionDegrees(ExecutionYear executionYear) {
+        try {
+            return secondCycleExecutionDegrees.get(
+                    executionYear.getExternalId(),
+                    () -> Collections.unmodifiableList(ExecutionDegree.getAllByExecutionYear(executionYear).stream()
+                            .filter(executionDegree -> executionDegree.getDegree().getCycleTypes().contains(CycleType.SECOND_CYCLE))
+                            .sorted(ExecutionDegree.EXECUTION_DEGREE_COMPARATORY_BY_DEGREE_TYPE_AND_NAME_AND_EXECUTION_YEAR)
+                            .collect(Collectors.toList())));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.ExecutionDegree;
+import org.fenixedu.academic.domain.ExecutionYear;
+import org.fenixedu.academic.domain.StudentCurricularPlan;
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Resolves the configurations a registration may apply to, walking its curriculum only once. What is kept per
+ * registration is the set of execution degrees it may apply to, together with the curricular plans they were taken
+ * from, so a registration that changes plan is resolved again. The configurations are read from those execution degrees
+ * on every call, so configurations created or deleted on any node are seen at once. Only the execution degrees from the
+ * year the registration started onwards are considered, and resolutions expire after a while so that execution degrees
+ * created later are eventually seen too.
+ */
+@Service
+public class RegistrationConfigurationsService {
+
+    private static final class Resolution {
+        private final Set<String> studentCurricularPlanIds;
+        private final Set<String> executionDegreeIds;
+
+        private Resolution(Set<String> studentCurricularPlanIds, Set<String> executionDegreeIds) {
+            this.studentCurricularPlanIds = studentCurricularPlanIds;
+            this.executionDegreeIds = executionDegreeIds;
+        }
+    }
+
+    private final Cache<String, Resolution> resolutions = CacheBuilder.newBuilder().maximumSize(50000)
+            .expireAfterWrite(1, TimeUnit.HOURS).build();
+
+    public Set<ThesisProposalsConfiguration> getConfigurations(Registration registration) {
+        Set<String> studentCurricularPlanIds = getStudentCurricularPlanIds(registration);
+        Resolution resolution = resolutions.getIfPresent(registration.getExternalId());
+
+        if (resolution == null || !resolution.studentCurricularPlanIds.equals(studentCurricularPlanIds)) {
+            resolution = new Resolution(studentCurricularPlanIds, resolve(registration));
+            resolutions.put(registration.getExternalId(), resolution);
+        }
+
+        return resolution.executionDegreeIds.stream()
+                .map(executionDegreeId -> FenixFramework.<ExecutionDegree> getDomainObject(executionDegreeId))
+                .filter(FenixFramework::isDomainObjectValid)
+                .flatMap(executionDegree -> executionDegree.getThesisProposalsConfigurationSet().stream())
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> getStudentCurricularPlanIds(Registration registration) {
+        return registration.getStudentCurricularPlansSet().stream().map(StudentCurricularPlan::getExternalId)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> resolve(Registration registration) {
+        ExecutionYear startExecutionYear = registration.getStartExecutionYear();
+
+        return registration.getAllCurriculumGroups().stream().map(group -> group.getDegreeCurricularPlanOfDegreeModule())
+                .filter(Objects::nonNull).map(dcp -> dcp.getDegree()).distinct()
+                .flatMap(degree -> degree.getExecutionDegrees().stream())
+                .filter(execDegree -> startExecutionYear == null || execDegree.getExecutionYear().compareTo(startExecutionYear) >= 0)
+                .map(ExecutionDegree::getExternalId).collect(Collectors.toSet());
+    }
+
+}
@@ -18,27 +18,37 @@
  */
 package org.fenixedu.academic.thesis.ui.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import org.fenixedu.academic.domain.ExecutionDegree;
-import org.fenixedu.academic.domain.StudentCurricularPlan;
 import org.fenixedu.academic.domain.student.Registration;
 import org.fenixedu.academic.domain.student.Student;
 import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacyEvent;
 import org.fenixedu.academic.thesis.domain.ThesisProposal;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.CandidacyEligibility;
+import org.fenixedu.academic.thesis.ui.bean.CandidacySubmissionMetricsBean;
+import org.fenixedu.academic.thesis.ui.bean.ProposalCatalogue;
+import org.fenixedu.academic.thesis.ui.exception.CandidacySubmissionConflictException;
+import org.fenixedu.academic.thesis.ui.exception.InvalidCandidacyPreferencesException;
 import org.fenixedu.academic.thesis.ui.exception.MaxNumberStudentThesisCandidaciesException;
 import org.fenixedu.academic.thesis.ui.exception.OutOfCandidacyPeriodException;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalsDomainException;
-import org.fenixedu.academic.thesis.ui.exception.Unsuficient1stCycleCreditsException;
-import org.fenixedu.academic.thesis.ui.exception.Unsuficient2ndCycleCreditsException;
+import org.fenixedu.bennu.signals.Signal;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.ui.Model;
 
@@ -52,28 +62,88 @@ import com.google.gson.JsonElement;
 @Service
 public class StudentCandidaciesService {
 
+    private static final Logger logger = LoggerFactory.getLogger(StudentCandidaciesService.class);
+
+    /**
+     * Number of times the write transaction of a submission runs before the submission is given up.
+     */
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final CandidacySubmissionMetricsBean submissionMetrics = new CandidacySubmissionMetricsBean();
+
+    @Autowired
+    ProposalCatalogueService catalogueService;
+
+    @Autowired
+    CandidacyEligibilityService eligibilityService;
+
+    @Autowired
+    RegistrationConfigurationsService registrationConfigurationsService;
+
+    /**
+     * Applies the ordering posted by the student. The posted list must be a permutation of the student's candidacies in a
+     * single open configuration, numbered from 1; only the candidacies whose preference changed are written and signalled,
+     * and an unchanged ordering writes nothing.
+     */
     @Atomic(mode = TxMode.WRITE)
-    public void updateStudentThesisCandidaciesWeights(JsonArray jsonArray) throws OutOfCandidacyPeriodException {
-        for (JsonElement elem : jsonArray) {
+    public void updateStudentThesisCandidaciesWeights(Student student, JsonArray jsonArray) throws ThesisProposalException {
+        Map<StudentThesisCandidacy, Integer> preferences = new HashMap<StudentThesisCandidacy, Integer>();
+        Set<Integer> preferenceNumbers = new HashSet<Integer>();
 
+        for (JsonElement elem : jsonArray) {
             String externalId = elem.getAsJsonObject().get("externalId").getAsString();
             int preference = elem.getAsJsonObject().get("preference").getAsInt();
 
             StudentThesisCandidacy studentThesisCandidacy = FenixFramework.getDomainObject(externalId);
 
-            if (studentThesisCandidacy.getThesisProposal().getSingleThesisProposalsConfiguration().getCandidacyPeriod()
-                    .containsNow()) {
-                studentThesisCandidacy.setPreferenceNumber(preference);
-            } else {
-                throw new OutOfCandidacyPeriodException();
+            if (!FenixFramework.isDomainObjectValid(studentThesisCandidacy)
+                    || studentThesisCandidacy.getRegistration().getStudent() != student
+                    || preferences.put(studentThesisCandidacy, preference) != null || !preferenceNumbers.add(preference)
+                    || preference < 1 || preference > jsonArray.size()) {
+                throw new InvalidCandidacyPreferencesException();
             }
         }
+
+        if (preferences.isEmpty()) {
+            return;
+        }
+
+        StudentThesisCandidacy first = preferences.keySet().iterator().next();
+        Registration registration = first.getRegistration();
+        ThesisProposalsConfiguration configuration = first.getThesisProposal().getSingleThesisProposalsConfiguration();
+
+        if (!configuration.getCandidacyPeriod().containsNow()) {
+            throw new OutOfCandidacyPeriodException();
+        }
+
+        Set<StudentThesisCandidacy> configurationCandidacies =
+                registration.getStudentThesisCandidacySet().stream()
+                        .filter(candidacy -> candidacy.getThesisProposal().getSingleThesisProposalsConfiguration() == configuration)
+                        .collect(Collectors.toSet());
+
+        if (!configurationCandidacies.equals(preferences.keySet())) {
+            throw new InvalidCandidacyPreferencesException();
+        }
+
+        Map<StudentThesisCandidacy, Integer> changed =
+                preferences.entrySet().stream().filter(entry -> entry.getKey().getPreferenceNumber() != entry.getValue())
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        StudentThesisCandidacy.reorderPreferenceNumbers(changed);
+        changed.keySet().forEach(
+                candidacy -> Signal.emit(StudentThesisCandidacy.SIGNAL_EDITED, new StudentThesisCandidacyEvent(candidacy)));
     }
 
     @Atomic(mode = TxMode.WRITE)
     public boolean delete(StudentThesisCandidacy studentThesisCandidacy, Model model) {
         try {
+            StudentThesisCandidacyEvent event = new StudentThesisCandidacyEvent(studentThesisCandidacy);
             studentThesisCandidacy.delete();
+            Signal.emit(StudentThesisCandidacy.SIGNAL_DELETED, event);
         } catch (ThesisProposalsDomainException domainException) {
             model.addAttribute("domainException", domainException.getLocalizedMessage());
             return false;
@@ -82,28 +152,78 @@ public class StudentCandidaciesService {
         return true;
     }
 
-    @Atomic(mode = TxMode.WRITE)
+    /**
+     * Submits a candidacy in two phases: the eligibility checks run in a read-only transaction, and the write
+     * transaction only re-checks the period and the number of candidacies, so that a submission conflicting with a
+     * concurrent one is retried at a small cost. The write runs at most {@link #MAX_WRITE_ATTEMPTS} times; past that the
+     * submission is given up with a {@link CandidacySubmissionConflictException} and the student is asked to try again.
+     */
     public void createStudentThesisCandidacy(Registration registration, ThesisProposal thesisProposal)
-            throws MaxNumberStudentThesisCandidaciesException, OutOfCandidacyPeriodException,
-            Unsuficient1stCycleCreditsException, Unsuficient2ndCycleCreditsException {
+            throws ThesisProposalException {
 
-        ThesisProposalsConfiguration thesisProposalsConfiguration = thesisProposal.getSingleThesisProposalsConfiguration();
+        submissionMetrics.incrementSubmitted();
 
-        StudentCurricularPlan studentCurricularPlan = registration.getActiveStudentCurricularPlan();
+        try {
+            validateStudentThesisCandidacy(registration, thesisProposal);
+
+            AtomicInteger attempts = new AtomicInteger();
+            long start = System.nanoTime();
+            try {
+                writeStudentThesisCandidacy(registration, thesisProposal, attempts);
+            } finally {
+                submissionMetrics.addWriteTime(System.nanoTime() - start);
+            }
 
-        if (studentCurricularPlan.getFirstCycle() != null
-                && thesisProposalsConfiguration.getMinECTS1stCycle() > studentCurricularPlan.getFirstCycle()
-                        .getAprovedEctsCredits()) {
-            throw new Unsuficient1stCycleCreditsException();
+            submissionMetrics.incrementCreated();
+        } catch (ThesisProposalException e) {
+            submissionMetrics.incrementRejected();
+            throw e;
         }
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private void validateStudentThesisCandidacy(Registration registration, ThesisProposal thesisProposal)
+            throws ThesisProposalException {
 
-        if (studentCurricularPlan.getSecondCycle() == null
-                || thesisProposalsConfiguration.getMinECTS2ndCycle() > studentCurricularPlan.getSecondCycle()
-                        .getAprovedEctsCredits()) {
-            throw new Unsuficient2ndCycleCreditsException();
+        ThesisProposalsConfiguration thesisProposalsConfiguration = thesisProposal.getSingleThesisProposalsConfiguration();
+
+        eligibilityService.check(registration, thesisProposalsConfiguration);
+
+        checkCandidaciesLimit(registration, thesisProposalsConfiguration);
+    }
+
+    /**
+     * {@link Atomic} re-executes this method when its transaction conflicts with a concurrent one; the attempts are
+     * counted so that the retries stop after {@link #MAX_WRITE_ATTEMPTS}, aborting the transaction with a checked
+     * exception.
+     */
+    @Atomic(mode = TxMode.WRITE)
+    private void writeStudentThesisCandidacy(Registration registration, ThesisProposal thesisProposal, AtomicInteger attempts)
+            throws ThesisProposalException {
+
+        int attempt = attempts.incrementAndGet();
+        if (attempt > 1) {
+            submissionMetrics.incrementRetries();
         }
+        if (attempt > MAX_WRITE_ATTEMPTS) {
+            submissionMetrics.incrementConflicts();
+            logger.warn("Giving up candidacy of {} to proposal {} after {} conflicting attempts", registration.getExternalId(),
+                    thesisProposal.getExternalId(), MAX_WRITE_ATTEMPTS);
+            throw new CandidacySubmissionConflictException();
+        }
+
+        long candidaciesCount = checkCandidaciesLimit(registration, thesisProposal.getSingleThesisProposalsConfiguration());
+
+        StudentThesisCandidacy candidacy = new StudentThesisCandidacy(registration, (int) candidaciesCount + 1, thesisProposal);
+        Signal.emit(StudentThesisCandidacy.SIGNAL_CREATED, new StudentThesisCandidacyEvent(candidacy));
+    }
+
+    private long checkCandidaciesLimit(Registration registration, ThesisProposalsConfiguration thesisProposalsConfiguration)
+            throws OutOfCandidacyPeriodException, MaxNumberStudentThesisCandidaciesException {
+
+        final DateTime now = new DateTime();
 
-        if (!thesisProposalsConfiguration.getCandidacyPeriod().containsNow()) {
+        if (!thesisProposalsConfiguration.getCandidacyPeriod().contains(now)) {
             throw new OutOfCandidacyPeriodException();
         }
 
@@ -112,24 +232,22 @@ public class StudentCandidaciesService {
                         .getStudentThesisCandidacySet()
                         .stream()
                         .filter(candidacy -> candidacy.getThesisProposal().getSingleThesisProposalsConfiguration()
-                                .getCandidacyPeriod().containsNow()).count();
+                                .getCandidacyPeriod().contains(now)).count();
 
         if (thesisProposalsConfiguration.getMaxThesisCandidaciesByStudent() != -1
                 && candidaciesCount >= thesisProposalsConfiguration.getMaxThesisCandidaciesByStudent()) {
             throw new MaxNumberStudentThesisCandidaciesException(registration.getStudent());
         }
 
-        StudentThesisCandidacy studentThesisCandidacy =
-                new StudentThesisCandidacy(registration, (int) candidaciesCount + 1, thesisProposal);
-        registration.getStudentThesisCandidacySet().add(studentThesisCandidacy);
+        return candidaciesCount;
+    }
 
+    public CandidacySubmissionMetricsBean getSubmissionMetrics() {
+        return submissionMetrics;
     }
 
     public Set<ThesisProposalsConfiguration> getConfigurationsForRegistration(Registration reg) {
-        return reg.getAllCurriculumGroups().stream().map(group -> group.getDegreeCurricularPlanOfDegreeModule())
-                .filter(Objects::nonNull).map(dcp -> dcp.getDegree()).flatMap(degree -> degree.getExecutionDegrees().stream())
-                .flatMap((ExecutionDegree execDegree) -> execDegree.getThesisProposalsConfigurationSet().stream())
-                .collect(Collectors.toSet());
+        return registrationConfigurationsService.getConfigurations(reg);
     }
 
     public Set<ThesisProposalsConfiguration> getStudentConfigurations(Student student) {
@@ -160,26 +278,49 @@ public class StudentCandidaciesService {
         return candidaciesByConfig;
     }
 
-    public HashMap<Registration, Set<ThesisProposal>> getOpenProposalsByReg(Student student) {
-        HashMap<Registration, Set<ThesisProposal>> proposalsByReg = new HashMap<Registration, Set<ThesisProposal>>();
+    /**
+     * Lists, for each active registration, the visible proposals of its open configurations the student has not applied
+     * to yet. Proposals are read from the shared {@link ProposalCatalogue} of each configuration, whose builds are
+     * already shared by all students, so only the filtering by the student's candidacies is done per request.
+     */
+    public Map<Registration, List<ProposalCatalogue.Entry>> getOpenProposalsByReg(Student student) {
+        HashMap<Registration, List<ProposalCatalogue.Entry>> proposalsByReg =
+                new HashMap<Registration, List<ProposalCatalogue.Entry>>();
 
-        student.getActiveRegistrations().forEach(
-                reg -> {
-                    Set<ThesisProposal> openProposals =
-                            getConfigurationsForRegistration(reg)
-                                    .stream()
-                                    .filter(config -> config.getCandidacyPeriod().containsNow())
-                                    .flatMap(config -> config.getThesisProposalSet().stream())
-                                    .filter(proposal -> !proposal.getHidden())
-                                    .filter(proposal -> !(proposal.getStudentThesisCandidacySet().stream()
-                                            .map(candidacy -> candidacy.getRegistration().getStudent()).anyMatch(st -> st
-                                            .equals(student)))).collect(Collectors.toSet());
-                    proposalsByReg.put(reg, openProposals);
-                });
+        Set<String> appliedProposals =
+                student.getRegistrationsSet().stream().flatMap(reg -> reg.getStudentThesisCandidacySet().stream())
+                        .map(candidacy -> candidacy.getThesisProposal().getExternalId()).collect(Collectors.toSet());
+
+        student.getActiveRegistrations().forEach(reg -> {
+            Map<String, ProposalCatalogue.Entry> openProposals = new LinkedHashMap<String, ProposalCatalogue.Entry>();
+
+            getConfigurationsForRegistration(reg).stream().filter(config -> config.getCandidacyPeriod().containsNow())
+                    .map(catalogueService::getCatalogue).flatMap(catalogue -> catalogue.getProposals().stream())
+                    .filter(entry -> !appliedProposals.contains(entry.getExternalId()))
+                    .forEach(entry -> openProposals.putIfAbsent(entry.getExternalId(), entry));
+
+            proposalsByReg.put(reg, new ArrayList<ProposalCatalogue.Entry>(openProposals.values()));
+        });
 
         return proposalsByReg;
     }
 
+    /**
+     * Lists the open configurations of the active registrations of a student whose minimum credits the student does not
+     * meet, so that the student knows it before applying.
+     */
+    public Set<ThesisProposalsConfiguration> getIneligibleConfigs(Student student) {
+        Set<ThesisProposalsConfiguration> ineligibleConfigs = new HashSet<ThesisProposalsConfiguration>();
+
+        student.getActiveRegistrations().forEach(reg -> {
+            CandidacyEligibility eligibility = eligibilityService.getEligibility(reg);
+            getConfigurationsForRegistration(reg).stream().filter(config -> config.getCandidacyPeriod().containsNow())
+                    .filter(config -> !eligibility.isEligible(config)).forEach(ineligibleConfigs::add);
+        });
+
+        return ineligibleConfigs;
+    }
+
     public Set<ThesisProposalsConfiguration> getSuggestedConfigs(Student student) {
 
         Set<ThesisProposalsConfiguration> suggestedConfigs = new HashSet<ThesisProposalsConfiguration>();
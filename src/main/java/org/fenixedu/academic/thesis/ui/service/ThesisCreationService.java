@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.Enrolment;
+import org.fenixedu.academic.domain.ExecutionYear;
+import org.fenixedu.academic.domain.student.Registration;
+import org.fenixedu.academic.domain.thesis.Thesis;
+import org.fenixedu.academic.domain.thesis.ThesisParticipationType;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.ThesisCreationJob;
+import org.fenixedu.academic.thesis.domain.ThesisProposal;
+import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.ui.bean.ThesisCreationProgressBean;
+import org.fenixedu.academic.util.MultiLanguageString;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Creates (or brings up to date) the {@link Thesis} of every student assigned to a proposal of a configuration. Each
+ * chunk of candidacies is reconciled in its own transaction, and a thesis is only written when its title or orientators
+ * differ from the proposal.
+ */
+@Service
+public class ThesisCreationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThesisCreationService.class);
+
+    private static final int CHUNK_SIZE = 50;
+
+    public enum Outcome {
+        CREATED, UPDATED, UNCHANGED, SKIPPED
+    }
+
+    @Autowired
+    BackgroundJobService backgroundJobService;
+
+    public ThesisCreationProgressBean getProgress(ThesisProposalsConfiguration configuration) {
+        ThesisCreationJob job = configuration.getThesisCreationJob();
+        return job != null ? new ThesisCreationProgressBean(job) : null;
+    }
+
+    public ThesisCreationProgressBean createTheses(ThesisProposalsConfiguration configuration) {
+        ThesisCreationJob job = startJob(configuration, Authenticate.getUser());
+        if (job == null) {
+            return getProgress(configuration);
+        }
+
+        final String jobId = job.getExternalId();
+        final User user = job.getStartedBy();
+        final DateTime started = job.getStarted();
+
+        backgroundJobService.execute(() -> run(jobId, user, started));
+
+        return new ThesisCreationProgressBean(job);
+    }
+
+    /**
+     * Starts a new run unless one is already running on any node, in which case it returns <code>null</code>.
+     */
+    @Atomic(mode = TxMode.WRITE)
+    private ThesisCreationJob startJob(ThesisProposalsConfiguration configuration, User user) {
+        ThesisCreationJob job = configuration.getThesisCreationJob();
+
+        if (job == null) {
+            return new ThesisCreationJob(configuration, user);
+        }
+        if (job.isRunning()) {
+            return null;
+        }
+
+        job.restart(user);
+        return job;
+    }
+
+    private void run(String jobId, User user, DateTime started) {
+        Authenticate.mock(user);
+        try {
+            for (List<String> chunk : Lists.partition(getAssignedCandidacies(jobId, started), CHUNK_SIZE)) {
+                if (!reconcile(jobId, started, chunk)) {
+                    return;
+                }
+            }
+
+            finish(jobId, started, false);
+        } catch (RuntimeException e) {
+            logger.error("Thesis creation failed for job " + jobId, e);
+            finish(jobId, started, true);
+        } finally {
+            Authenticate.unmock();
+        }
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private List<String> getAssignedCandidacies(String jobId, DateTime started) {
+        ThesisCreationJob job = FenixFramework.getDomainObject(jobId);
+        ThesisProposalsConfiguration configuration = job.getThesisProposalsConfiguration();
+
+        Map<Registration, StudentThesisCandidacy> bestAccepted = new HashMap<Registration, StudentThesisCandidacy>();
+
+        configuration
+                .getThesisProposalSet()
+                .stream()
+                .flatMap(proposal -> proposal.getStudentThesisCandidacySet().stream())
+                .filter(StudentThesisCandidacy::getAcceptedByAdvisor)
+                .forEach(
+                        candidacy -> bestAccepted.merge(candidacy.getRegistration(), candidacy, (c1, c2) -> c1
+                                .getPreferenceNumber() <= c2.getPreferenceNumber() ? c1 : c2));
+
+        if (job.getStarted().equals(started)) {
+            job.start(bestAccepted.size());
+        }
+
+        return bestAccepted.values().stream().map(StudentThesisCandidacy::getExternalId).collect(Collectors.toList());
+    }
+
+    /**
+     * Reconciles a chunk and records its outcomes on the job, in the same transaction. Returns <code>false</code>,
+     * without writing anything, if the job was restarted since this run started.
+     */
+    @Atomic(mode = TxMode.WRITE)
+    private boolean reconcile(String jobId, DateTime started, List<String> candidacies) {
+        ThesisCreationJob job = FenixFramework.getDomainObject(jobId);
+        if (!job.getStarted().equals(started)) {
+            return false;
+        }
+
+        Map<Outcome, Integer> outcomes = new EnumMap<Outcome, Integer>(Outcome.class);
+        for (String id : candidacies) {
+            outcomes.merge(reconcile((StudentThesisCandidacy) FenixFramework.getDomainObject(id)), 1, Integer::sum);
+        }
+
+        job.progress(outcomes.getOrDefault(Outcome.CREATED, 0), outcomes.getOrDefault(Outcome.UPDATED, 0),
+                outcomes.getOrDefault(Outcome.UNCHANGED, 0), outcomes.getOrDefault(Outcome.SKIPPED, 0));
+        return true;
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private void finish(String jobId, DateTime started, boolean failed) {
+        ThesisCreationJob job = FenixFramework.getDomainObject(jobId);
+        if (job.getStarted().equals(started)) {
+            job.finish(failed);
+        }
+    }
+
+    public static Outcome reconcile(StudentThesisCandidacy studentThesisCandidacy) {
+        ThesisProposal proposal = studentThesisCandidacy.getThesisProposal();
+        Registration registration = studentThesisCandidacy.getRegistration();
+
+        ExecutionYear executionYear = proposal.getSingleThesisProposalsConfiguration().getExecutionDegree().getExecutionYear();
+        Enrolment dissertationEnrolment = registration.getDissertationEnrolment();
+
+        if (dissertationEnrolment == null || dissertationEnrolment.getExecutionYear() != executionYear
+                || registration.getDegree().getExecutionDegreesForExecutionYear(executionYear).isEmpty()) {
+            return Outcome.SKIPPED;
+        }
+
+        if (!registration.hasDissertationThesis()) {
+            Thesis thesis = new Thesis(registration.getDegree(), dissertationEnrolment, new MultiLanguageString(proposal.getTitle()));
+            addOrientators(thesis, proposal);
+            return Outcome.CREATED;
+        }
+
+        Thesis thesis = dissertationEnrolment.getThesis();
+        boolean changed = false;
+
+        if (thesis.getTitle() == null || !proposal.getTitle().equals(thesis.getTitle().getContent())) {
+            thesis.setTitle(new MultiLanguageString(proposal.getTitle()));
+            changed = true;
+        }
+
+        if (!getOrientatorKeys(thesis).equals(getOrientatorKeys(proposal))) {
+            thesis.getParticipationsSet().stream()
+                    .filter(p -> p.getType() == ThesisParticipationType.ORIENTATOR || p.getType() == ThesisParticipationType.COORIENTATOR)
+                    .collect(Collectors.toList()).forEach(participation -> participation.delete());
+            addOrientators(thesis, proposal);
+            changed = true;
+        }
+
+        return changed ? Outcome.UPDATED : Outcome.UNCHANGED;
+    }
+
+    private static void addOrientators(Thesis thesis, ThesisProposal proposal) {
+        for (ThesisProposalParticipant participant : proposal.getThesisProposalParticipantSet()) {
+            if (participant.getUser() != null) {
+                thesis.addParticipant(participant.getUser().getPerson(), ThesisParticipationType.ORIENTATOR);
+            } else {
+                thesis.addExternal(ThesisParticipationType.ORIENTATOR, participant.getExternalUser().getName(), participant
+                        .getExternalUser().getEmail());
+            }
+        }
+    }
+
+    /**
+     * People orienting a thesis, whether as orientator or coorientator, since the type may be changed on the thesis after
+     * it is created from a proposal.
+     */
+    private static Set<String> getOrientatorKeys(Thesis thesis) {
+        return thesis
+                .getParticipationsSet()
+                .stream()
+                .filter(p -> p.getType() == ThesisParticipationType.ORIENTATOR || p.getType() == ThesisParticipationType.COORIENTATOR)
+                .map(p -> p.getPerson() != null ? p.getPerson().getExternalId() : p.getName() + " " + p.getEmail())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> getOrientatorKeys(ThesisProposal proposal) {
+        return proposal
+                .getThesisProposalParticipantSet()
+                .stream()
+                .map(p -> p.getUser() != null ? p.getUser().getPerson().getExternalId() : p.getExternalUser().getName() + " "
+                        + p.getExternalUser().getEmail()).collect(Collectors.toSet());
+    }
+
+}
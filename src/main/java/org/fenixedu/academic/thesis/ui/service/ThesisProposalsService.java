@@ -1,6 +1,9 @@
 package org.fenixedu.academic.thesis.ui.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,38 +17,32 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.fenixedu.academic.domain.Enrolment;
 import org.fenixedu.academic.domain.ExecutionDegree;
 import org.fenixedu.academic.domain.ExecutionYear;
 import org.fenixedu.academic.domain.Teacher;
 import org.fenixedu.academic.domain.accessControl.CoordinatorGroup;
 import org.fenixedu.academic.domain.exceptions.DomainException;
 import org.fenixedu.academic.domain.student.Registration;
-import org.fenixedu.academic.domain.thesis.Thesis;
-import org.fenixedu.academic.domain.thesis.ThesisParticipationType;
 import org.fenixedu.academic.domain.util.email.Message;
 import org.fenixedu.academic.thesis.domain.StudentThesisCandidacy;
+import org.fenixedu.academic.thesis.domain.StudentThesisCandidacyEvent;
 import org.fenixedu.academic.thesis.domain.ThesisProposal;
 import org.fenixedu.academic.thesis.domain.ThesisProposalParticipant;
 import org.fenixedu.academic.thesis.domain.ThesisProposalParticipantType;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
 import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.domain.VersionCounter;
+import org.fenixedu.academic.thesis.ui.bean.BulkOperationResult;
 import org.fenixedu.academic.thesis.ui.bean.ThesisProposalBean;
 import org.fenixedu.academic.thesis.ui.bean.ThesisProposalParticipantBean;
 import org.fenixedu.academic.thesis.ui.exception.CannotEditUsedThesisProposalsException;
-import org.fenixedu.academic.thesis.ui.exception.IllegalParticipantTypeException;
-import org.fenixedu.academic.thesis.ui.exception.InvalidPercentageException;
-import org.fenixedu.academic.thesis.ui.exception.InvalidUserException;
+import org.fenixedu.academic.thesis.ui.exception.DuplicateThesisParticipantException;
 import org.fenixedu.academic.thesis.ui.exception.MaxNumberThesisProposalsException;
 import org.fenixedu.academic.thesis.ui.exception.OutOfProposalPeriodException;
 import org.fenixedu.academic.thesis.ui.exception.ParticipantNotIncludedException;
 import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
 import org.fenixedu.academic.thesis.ui.exception.TotalParticipantPercentageException;
 import org.fenixedu.academic.thesis.ui.exception.UnequivalentThesisConfigurationsException;
-import org.fenixedu.academic.thesis.ui.exception.UnexistentExternalEmailException;
-import org.fenixedu.academic.thesis.ui.exception.UnexistentThesisExternalParticipantException;
-import org.fenixedu.academic.thesis.ui.exception.UnexistentThesisParticipantException;
-import org.fenixedu.academic.util.MultiLanguageString;
 import org.fenixedu.bennu.core.domain.Bennu;
 import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.bennu.core.groups.DynamicGroup;
@@ -65,11 +62,8 @@ import pt.ist.fenixframework.Atomic;
 import pt.ist.fenixframework.Atomic.TxMode;
 import pt.ist.fenixframework.FenixFramework;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 @Service
 public class ThesisProposalsService {
@@ -80,10 +74,21 @@ public class ThesisProposalsService {
     @Autowired
     MessageSource messageSource;
 
+    @Autowired
+    ReferenceDataService referenceDataService;
+
+    private final SingleFlight<List<Object>, List<ThesisProposal>> coordinatorProposalsFlight =
+            new SingleFlight<List<Object>, List<ThesisProposal>>();
+
     public List<ThesisProposal> getCoordinatorProposals(ThesisProposalsConfiguration configuration) {
         return getCoordinatorProposals(configuration, null, null, null);
     }
 
+    /**
+     * Lists the proposals of a configuration matching the given filters. Concurrent calls with the same arguments share
+     * a single evaluation, so a call may see the state read by an evaluation still running when it arrived, and the
+     * returned list must not be modified.
+     */
     public List<ThesisProposal> getCoordinatorProposals(ThesisProposalsConfiguration configuration, Boolean isVisible,
             Boolean isAttributed, Boolean hasCandidacy) {
 
@@ -91,6 +96,15 @@ public class ThesisProposalsService {
             return new ArrayList<ThesisProposal>();
         }
 
+        return coordinatorProposalsFlight.execute(
+                Arrays.asList(configuration.getExternalId(), isVisible, isAttributed, hasCandidacy),
+                () -> Collections.unmodifiableList(filterCoordinatorProposals(configuration, isVisible, isAttributed,
+                        hasCandidacy)));
+    }
+
+    private List<ThesisProposal> filterCoordinatorProposals(ThesisProposalsConfiguration configuration, Boolean isVisible,
+            Boolean isAttributed, Boolean hasCandidacy) {
+
         Stream<ThesisProposal> proposalsStream = configuration.getThesisProposalSet().stream();
 
         if (isVisible != null) {
@@ -168,79 +182,9 @@ public class ThesisProposalsService {
     }
 
     @Atomic(mode = TxMode.WRITE)
-    public ThesisProposal createThesisProposal(ThesisProposalBean proposalBean, String participantsJson, String externalsJson)
+    public ThesisProposal createThesisProposal(ThesisProposalBean proposalBean, List<ThesisProposalParticipantBean> participants)
             throws ThesisProposalException {
 
-        JsonParser parser = new JsonParser();
-
-        Set<ThesisProposalParticipantBean> participants = new HashSet<ThesisProposalParticipantBean>();
-
-        if (participantsJson != null && !participantsJson.isEmpty()) {
-            for (JsonElement elem : parser.parse(participantsJson).getAsJsonArray()) {
-                JsonObject jsonObj = elem.getAsJsonObject();
-
-                String userId = jsonObj.get("userId").getAsString();
-                String userType = jsonObj.get("userType").getAsString();
-
-                try {
-                    int percentage = jsonObj.get("percentage").getAsInt();
-
-                    if (percentage > 100 || percentage < 0) {
-                        throw new InvalidPercentageException(percentage);
-                    }
-
-                    if (userType.isEmpty()) {
-                        throw new IllegalParticipantTypeException(User.findByUsername(userId));
-                    }
-
-                    if (userId == null || userId.isEmpty()) {
-                        throw new UnexistentThesisParticipantException();
-                    }
-
-                    participants.add(new ThesisProposalParticipantBean(User.findByUsername(userId), userType, percentage));
-                } catch (NumberFormatException e) {
-                    throw new InvalidPercentageException();
-                }
-            }
-        }
-
-        if (externalsJson != null && !externalsJson.isEmpty()) {
-            for (JsonElement elem : parser.parse(externalsJson).getAsJsonArray()) {
-                JsonObject jsonObj = elem.getAsJsonObject();
-
-                String name = jsonObj.get("name").getAsString();
-                String email = jsonObj.get("email").getAsString();
-                String userType = jsonObj.get("userType").getAsString();
-
-                try {
-                    int percentage = jsonObj.get("percentage").getAsInt();
-
-                    if (percentage > 100 || percentage < 0) {
-                        throw new InvalidPercentageException(percentage);
-                    }
-
-                    if (userType.isEmpty()) {
-                        throw new IllegalParticipantTypeException();
-                    }
-
-                    if (name == null || name.isEmpty()) {
-                        throw new UnexistentThesisExternalParticipantException();
-                    }
-
-                    if (email == null || email.isEmpty()) {
-                        throw new UnexistentExternalEmailException();
-                    }
-
-                    participants.add(new ThesisProposalParticipantBean(name, email, userType, percentage));
-                } catch (NumberFormatException e) {
-                    throw new InvalidPercentageException();
-                }
-            }
-        }
-        if (participants.isEmpty()) {
-            throw new UnexistentThesisParticipantException();
-        }
-
         User thesisCreator = Authenticate.getUser();
         if (!proposalBean.getExecutionDegreeSet().stream()
                 .anyMatch(e -> CoordinatorGroup.get(e.getDegree()).isMember(thesisCreator))
@@ -248,7 +192,7 @@ public class ThesisProposalsService {
             throw new ParticipantNotIncludedException();
         }
 
-        proposalBean.setThesisProposalParticipantsBean(participants);
+        proposalBean.setThesisProposalParticipantsBean(new HashSet<ThesisProposalParticipantBean>(participants));
         ThesisProposal thesisProposal = new ThesisProposalBean.Builder(proposalBean).build();
         Signal.emit(ThesisProposal.SIGNAL_CREATED, new DomainObjectEvent<ThesisProposal>(thesisProposal));
         return thesisProposal;
@@ -258,6 +202,7 @@ public class ThesisProposalsService {
     public boolean delete(ThesisProposal thesisProposal) {
         try {
             thesisProposal.delete();
+            Signal.emit(ThesisProposal.SIGNAL_DELETED, new DomainObjectEvent<ThesisProposal>(thesisProposal));
         } catch (DomainException domainException) {
             return false;
         }
@@ -286,7 +231,7 @@ public class ThesisProposalsService {
 
     @Atomic(mode = TxMode.WRITE)
     public void editThesisProposal(User currentUser, ThesisProposalBean thesisProposalBean, ThesisProposal thesisProposal,
-            JsonArray participantsArray, JsonArray externalsArray) throws ThesisProposalException {
+            List<ThesisProposalParticipantBean> participantsBean) throws ThesisProposalException {
 
         boolean isManager = DynamicGroup.get("managers").isMember(currentUser);
         boolean isDegreeCoordinator =
@@ -297,123 +242,105 @@ public class ThesisProposalsService {
             throw new CannotEditUsedThesisProposalsException(thesisProposal);
         }
 
-        ArrayList<ThesisProposalParticipantBean> participantsBean = new ArrayList<ThesisProposalParticipantBean>();
-
-        for (JsonElement elem : participantsArray) {
-            JsonObject jsonObj = elem.getAsJsonObject();
-
-            String userId = jsonObj.get("userId").getAsString();
-            String userType = jsonObj.get("userType").getAsString();
-            int percentage = jsonObj.get("percentage").getAsInt();
-
-            if (percentage > 100 || percentage < 0) {
-                throw new InvalidPercentageException(percentage);
-            }
-
-            User user = User.findByUsername(userId);
+        int totalPercentage =
+                participantsBean.stream().map(ThesisProposalParticipantBean::getPercentage).reduce(0, (a, b) -> a + b);
+        if (totalPercentage > 100) {
+            throw new TotalParticipantPercentageException();
+        }
 
-            if (user == null) {
-                throw new InvalidUserException();
+        Set<String> participantKeys = new HashSet<String>();
+        for (ThesisProposalParticipantBean participantBean : participantsBean) {
+            if (!participantKeys.add(getParticipantKey(participantBean))) {
+                throw new DuplicateThesisParticipantException();
             }
+        }
 
-            if (userType.isEmpty()) {
-                throw new IllegalParticipantTypeException(user);
+        Map<String, ThesisProposalParticipant> currentParticipants = new HashMap<String, ThesisProposalParticipant>();
+        List<ThesisProposalParticipant> surplusParticipants = new ArrayList<ThesisProposalParticipant>();
+        for (ThesisProposalParticipant participant : thesisProposal.getThesisProposalParticipantSet()) {
+            if (currentParticipants.putIfAbsent(getParticipantKey(participant), participant) != null) {
+                surplusParticipants.add(participant);
             }
-
-            ThesisProposalParticipantBean participantBean = new ThesisProposalParticipantBean(user, userType, percentage);
-
-            participantsBean.add(participantBean);
         }
 
-        for (JsonElement elem : externalsArray) {
-            JsonObject jsonObj = elem.getAsJsonObject();
-
-            String name = jsonObj.get("name").getAsString();
-            String email = jsonObj.get("email").getAsString();
-            String userType = jsonObj.get("userType").getAsString();
-
-            try {
-                int percentage = jsonObj.get("percentage").getAsInt();
+        ArrayList<ThesisProposalParticipant> participants = new ArrayList<ThesisProposalParticipant>();
 
-                if (percentage > 100 || percentage < 0) {
-                    throw new InvalidPercentageException(percentage);
-                }
+        for (ThesisProposalParticipantBean participantBean : participantsBean) {
 
-                if (userType.isEmpty()) {
-                    throw new IllegalParticipantTypeException();
-                }
+            ThesisProposalParticipantType participantType =
+                    FenixFramework.getDomainObject(participantBean.getParticipantTypeExternalId());
 
-                if (name == null || name.isEmpty()) {
-                    throw new UnexistentThesisExternalParticipantException();
+            ThesisProposalParticipant participant = currentParticipants.remove(getParticipantKey(participantBean));
+
+            if (participant == null) {
+                participant =
+                        participantBean.getUserExternalId() != null ? new ThesisProposalParticipant(participantBean.getUser(),
+                                participantType, participantBean.getPercentage()) : new ThesisProposalParticipant(
+                                participantBean.getName(), participantBean.getEmail(), participantType,
+                                participantBean.getPercentage());
+                participant.setThesisProposal(thesisProposal);
+            } else {
+                if (participant.getThesisProposalParticipantType() != participantType) {
+                    participant.setThesisProposalParticipantType(participantType);
                 }
-
-                if (email == null || email.isEmpty()) {
-                    throw new UnexistentExternalEmailException();
+                if (participant.getParticipationPercentage() != participantBean.getPercentage()) {
+                    participant.setParticipationPercentage(participantBean.getPercentage());
                 }
-
-                participantsBean.add(new ThesisProposalParticipantBean(name, email, userType, percentage));
-            } catch (NumberFormatException e) {
-                throw new InvalidPercentageException();
             }
-        }
 
-        if (participantsBean.isEmpty()) {
-            throw new UnexistentThesisParticipantException();
+            participants.add(participant);
         }
-        for (ThesisProposalParticipant participant : thesisProposal.getThesisProposalParticipantSet()) {
+
+        for (ThesisProposalParticipant participant : currentParticipants.values()) {
             participant.delete();
         }
-
-        thesisProposal.getThesisProposalParticipantSet().clear();
-
-        ArrayList<ThesisProposalParticipant> participants = new ArrayList<ThesisProposalParticipant>();
-
-        int totalPercentage =
-                participantsBean.stream().map(ThesisProposalParticipantBean::getPercentage).reduce(0, (a, b) -> a + b);
-        if (totalPercentage > 100) {
-            throw new TotalParticipantPercentageException();
+        for (ThesisProposalParticipant participant : surplusParticipants) {
+            participant.delete();
         }
 
-        for (ThesisProposalParticipantBean participantBean : participantsBean) {
-
-            ThesisProposalParticipantType participantType =
-                    FenixFramework.getDomainObject(participantBean.getParticipantTypeExternalId());
-
-            ThesisProposalParticipant participant =
-                    participantBean.getUserExternalId() != null ? new ThesisProposalParticipant(
-                            FenixFramework.getDomainObject(participantBean.getUserExternalId()), participantType,
-                            participantBean.getPercentage()) : new ThesisProposalParticipant(participantBean.getName(),
-                            participantBean.getEmail(), participantType, participantBean.getPercentage());
+        for (ThesisProposalParticipant participant : participants) {
+            if (participant.getUser() == null || isManager || isDegreeCoordinator) {
+                continue;
+            }
 
-            for (ThesisProposalsConfiguration configuration : thesisProposal.getThesisConfigurationSet()) {
-                int proposalsCount =
+            for (ThesisProposalsConfiguration configuration : thesisProposalBean.getThesisProposalsConfigurations()) {
+                long proposalsCount =
                         configuration
                                 .getThesisProposalSet()
                                 .stream()
-                                .filter(proposal -> proposal.getThesisProposalParticipantSet().stream().map(p -> p.getUser())
-                                        .filter(Objects::nonNull).collect(Collectors.toSet()).contains(participant.getUser()))
-                                .collect(Collectors.toSet()).size();
+                                .filter(proposal -> proposal != thesisProposal)
+                                .filter(proposal -> proposal.getThesisProposalParticipantSet().stream()
+                                        .anyMatch(p -> p.getUser() == participant.getUser())).count();
 
-                if (!(isManager || isDegreeCoordinator) && configuration.getMaxThesisProposalsByUser() != -1
+                if (configuration.getMaxThesisProposalsByUser() != -1
                         && proposalsCount >= configuration.getMaxThesisProposalsByUser()) {
                     throw new MaxNumberThesisProposalsException(participant);
                 }
-
-                else {
-                    participant.setThesisProposal(thesisProposal);
-                    participants.add(participant);
-                }
             }
         }
 
-        thesisProposal.setTitle(thesisProposalBean.getTitle());
-        thesisProposal.setObservations(thesisProposalBean.getObservations());
-        thesisProposal.setRequirements(thesisProposalBean.getRequirements());
-        thesisProposal.setGoals(thesisProposalBean.getGoals());
-        thesisProposal.getThesisConfigurationSet().clear();
-        thesisProposal.getThesisConfigurationSet().addAll(thesisProposalBean.getThesisProposalsConfigurations());
+        if (!Objects.equals(thesisProposal.getTitle(), thesisProposalBean.getTitle())) {
+            thesisProposal.setTitle(thesisProposalBean.getTitle());
+        }
+        if (!Objects.equals(thesisProposal.getObservations(), thesisProposalBean.getObservations())) {
+            thesisProposal.setObservations(thesisProposalBean.getObservations());
+        }
+        if (!Objects.equals(thesisProposal.getRequirements(), thesisProposalBean.getRequirements())) {
+            thesisProposal.setRequirements(thesisProposalBean.getRequirements());
+        }
+        if (!Objects.equals(thesisProposal.getGoals(), thesisProposalBean.getGoals())) {
+            thesisProposal.setGoals(thesisProposalBean.getGoals());
+        }
 
-        thesisProposal.getThesisProposalParticipantSet().addAll(participants);
+        Set<ThesisProposalsConfiguration> configurations = thesisProposalBean.getThesisProposalsConfigurations();
+        thesisProposal.getThesisConfigurationSet().stream().filter(configuration -> !configurations.contains(configuration))
+                .collect(Collectors.toList()).forEach(configuration -> {
+                    // The signal only reaches the configurations the proposal is left in
+                    VersionCounter.incrementProposals(configuration, thesisProposal);
+                    thesisProposal.removeThesisConfiguration(configuration);
+                });
+        configurations.stream().filter(configuration -> !thesisProposal.getThesisConfigurationSet().contains(configuration))
+                .collect(Collectors.toList()).forEach(thesisProposal::addThesisConfiguration);
 
         ThesisProposalsConfiguration base =
                 (ThesisProposalsConfiguration) thesisProposalBean.getThesisProposalsConfigurations().toArray()[0];
@@ -429,7 +356,21 @@ public class ThesisProposalsService {
         if (!(isManager || isDegreeCoordinator) && !config.getProposalPeriod().containsNow()) {
             throw new OutOfProposalPeriodException();
         }
-        thesisProposal.setLocalization(thesisProposalBean.getLocalization());
+        if (!Objects.equals(thesisProposal.getLocalization(), thesisProposalBean.getLocalization())) {
+            thesisProposal.setLocalization(thesisProposalBean.getLocalization());
+        }
+
+        Signal.emit(ThesisProposal.SIGNAL_EDITED, new DomainObjectEvent<ThesisProposal>(thesisProposal));
+    }
+
+    private static String getParticipantKey(ThesisProposalParticipant participant) {
+        return participant.getUser() != null ? participant.getUser().getExternalId() : participant.getExternalUser().getName()
+                + " " + participant.getExternalUser().getEmail();
+    }
+
+    private static String getParticipantKey(ThesisProposalParticipantBean participantBean) {
+        return participantBean.getUserExternalId() != null ? participantBean.getUserExternalId() : participantBean.getName()
+                + " " + participantBean.getEmail();
     }
 
     @Atomic(mode = TxMode.WRITE)
@@ -437,11 +378,14 @@ public class ThesisProposalsService {
         final ThesisProposal thesisProposal = studentThesisCandidacy.getThesisProposal();
 
         for (StudentThesisCandidacy candidacy : thesisProposal.getStudentThesisCandidacySet()) {
+            if (candidacy.getAcceptedByAdvisor() && candidacy != studentThesisCandidacy) {
+                Signal.emit(StudentThesisCandidacy.SIGNAL_REVOKED, new StudentThesisCandidacyEvent(candidacy));
+            }
             candidacy.setAcceptedByAdvisor(false);
         }
 
         studentThesisCandidacy.setAcceptedByAdvisor(true);
-        createThesisForStudent(studentThesisCandidacy);
+        Signal.emit(StudentThesisCandidacy.SIGNAL_ACCEPTED, new StudentThesisCandidacyEvent(studentThesisCandidacy));
 
         int orderOfPreference = studentThesisCandidacy.getPreferenceNumber();
 
@@ -460,71 +404,10 @@ public class ThesisProposalsService {
         }
     }
 
-    public static void createThesisForStudent(StudentThesisCandidacy studentThesisCandidacy) {
-
-        ThesisProposal proposal = studentThesisCandidacy.getThesisProposal();
-        Registration registration = studentThesisCandidacy.getRegistration();
-
-        ExecutionYear executionYear = proposal.getSingleThesisProposalsConfiguration().getExecutionDegree().getExecutionYear();
-
-        registration
-                .getDegree()
-                .getExecutionDegreesForExecutionYear(executionYear)
-                .stream()
-                .forEach(
-                        executionDegree -> {
-                            Enrolment dissertationEnrolment = registration.getDissertationEnrolment();
-
-                            ExecutionYear candidacyExecutionYear =
-                                    studentThesisCandidacy.getThesisProposal().getSingleThesisProposalsConfiguration()
-                                            .getExecutionDegree().getExecutionYear();
-
-                            if (dissertationEnrolment != null
-                                    && dissertationEnrolment.getExecutionYear() == candidacyExecutionYear) {
-                                if (registration.hasDissertationThesis()) {
-                                    Thesis thesis = dissertationEnrolment.getThesis();
-                                    thesis.setTitle(new MultiLanguageString(proposal.getTitle()));
-
-                                    thesis.getParticipationsSet()
-                                            .stream()
-                                            .filter(p -> p.getType() == ThesisParticipationType.ORIENTATOR
-                                                    || p.getType() == ThesisParticipationType.COORIENTATOR)
-                                            .forEach(participation -> {
-                                                participation.delete();
-                                            });
-
-                                    for (ThesisProposalParticipant participant : proposal.getThesisProposalParticipantSet()) {
-                                        if (participant.getUser() != null) {
-                                            thesis.addParticipant(participant.getUser().getPerson(),
-                                                    ThesisParticipationType.ORIENTATOR);
-                                        } else {
-                                            thesis.addExternal(ThesisParticipationType.ORIENTATOR, participant.getExternalUser()
-                                                    .getName(), participant.getExternalUser().getEmail());
-                                        }
-                                    }
-                                } else {
-                                    Thesis thesis =
-                                            new Thesis(registration.getDegree(), dissertationEnrolment, new MultiLanguageString(
-                                                    proposal.getTitle()));
-
-                                    for (ThesisProposalParticipant participant : proposal.getThesisProposalParticipantSet()) {
-                                        if (participant.getUser() != null) {
-                                            thesis.addParticipant(participant.getUser().getPerson(),
-                                                    ThesisParticipationType.ORIENTATOR);
-                                        } else {
-                                            thesis.addExternal(ThesisParticipationType.ORIENTATOR, participant.getExternalUser()
-                                                    .getName(), participant.getExternalUser().getEmail());
-                                        }
-                                    }
-                                }
-                            } else {
-                            }
-                        });
-    }
-
     @Atomic(mode = TxMode.WRITE)
     public void revoke(StudentThesisCandidacy studentThesisCandidacy) {
         studentThesisCandidacy.setAcceptedByAdvisor(false);
+        Signal.emit(StudentThesisCandidacy.SIGNAL_REVOKED, new StudentThesisCandidacyEvent(studentThesisCandidacy));
     }
 
     private Optional<String> getAuthenticateGetUserName() {
@@ -572,16 +455,15 @@ public class ThesisProposalsService {
     @Atomic(mode = TxMode.WRITE)
     public void reject(StudentThesisCandidacy studentThesisCandidacy) {
         studentThesisCandidacy.setAcceptedByAdvisor(false);
+        Signal.emit(StudentThesisCandidacy.SIGNAL_REVOKED, new StudentThesisCandidacyEvent(studentThesisCandidacy));
     }
 
     public List<ThesisProposalParticipantType> getAllThesisProposalParticipantTypes() {
-        return ThesisProposalsSystem.getInstance().getThesisProposalParticipantTypeSet().stream()
-                .sorted(ThesisProposalParticipantType.COMPARATOR_BY_WEIGHT).collect(Collectors.toList());
+        return referenceDataService.getParticipantTypes();
     }
 
     public List<ThesisProposalParticipantType> getThesisProposalParticipantTypes() {
-        return ThesisProposalsSystem.getInstance().getThesisProposalParticipantTypeSet().stream().filter(t -> !t.getInactive())
-                .sorted(ThesisProposalParticipantType.COMPARATOR_BY_WEIGHT).collect(Collectors.toList());
+        return referenceDataService.getActiveParticipantTypes();
     }
 
     public List<ThesisProposalsConfiguration> getCurrentThesisProposalsConfigurations() {
@@ -612,30 +494,6 @@ public class ThesisProposalsService {
 
     }
 
-    public List<ThesisProposal> getRecentProposals(User user) {
-        Set<ThesisProposal> proposals =
-                user.getThesisProposalParticipantSet().stream().map(participant -> participant.getThesisProposal())
-                        .collect(Collectors.toSet());
-
-        HashMap<String, Set<ThesisProposal>> proposalTitleMap = new HashMap<String, Set<ThesisProposal>>();
-
-        for (ThesisProposal proposal : proposals) {
-            if (!proposalTitleMap.containsKey(proposal.getTitle())) {
-                proposalTitleMap.put(proposal.getTitle(), new HashSet<ThesisProposal>());
-            }
-            proposalTitleMap.get(proposal.getTitle()).add(proposal);
-        }
-
-        Set<ThesisProposal> recentProposals = new HashSet<ThesisProposal>();
-        for (String key : proposalTitleMap.keySet()) {
-            recentProposals.add(proposalTitleMap.get(key).stream().max(ThesisProposal.COMPARATOR_BY_PROPOSAL_PERIOD).get());
-        }
-
-        return recentProposals.stream()
-                .filter(proposal -> proposal.getSingleThesisProposalsConfiguration().getProposalPeriod().isBeforeNow())
-                .sorted(ThesisProposal.COMPARATOR_BY_PROPOSAL_PERIOD).collect(Collectors.toList());
-    }
-
     public Map<Registration, TreeSet<StudentThesisCandidacy>> getCoordinatorCandidacies(ThesisProposalsConfiguration configuration) {
 
         Map<Registration, TreeSet<StudentThesisCandidacy>> map = new HashMap<Registration, TreeSet<StudentThesisCandidacy>>();
@@ -700,9 +558,59 @@ public class ThesisProposalsService {
     public boolean toggleVisibility(ThesisProposal proposal) {
         final boolean state = !proposal.getHidden();
         proposal.setHidden(state);
+        Signal.emit(ThesisProposal.SIGNAL_EDITED, new DomainObjectEvent<ThesisProposal>(proposal));
         return state;
     }
 
+    public enum BulkAction {
+        SHOW, HIDE, DELETE
+    }
+
+    private static final int BULK_CHUNK_SIZE = 100;
+
+    /**
+     * Applies an action to a selection of proposals, {@value #BULK_CHUNK_SIZE} proposals per transaction. Proposals
+     * that cannot be deleted are reported as failed instead of aborting the remaining ones.
+     */
+    public BulkOperationResult applyBulkAction(Collection<ThesisProposal> proposals, BulkAction action) {
+        BulkOperationResult result = new BulkOperationResult(action.name());
+
+        List<String> ids = proposals.stream().map(ThesisProposal::getExternalId).collect(Collectors.toList());
+        for (List<String> chunk : Lists.partition(ids, BULK_CHUNK_SIZE)) {
+            result.addAll(applyBulkAction(chunk, action));
+        }
+
+        return result;
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private BulkOperationResult applyBulkAction(List<String> proposals, BulkAction action) {
+        BulkOperationResult result = new BulkOperationResult(action.name());
+
+        for (String id : proposals) {
+            ThesisProposal proposal = FenixFramework.getDomainObject(id);
+            String identifier = proposal.getIdentifier();
+
+            if (action == BulkAction.DELETE) {
+                if (proposal.isDeletable()) {
+                    proposal.delete();
+                    Signal.emit(ThesisProposal.SIGNAL_DELETED, new DomainObjectEvent<ThesisProposal>(proposal));
+                    result.addChanged(identifier);
+                } else {
+                    result.addFailed(identifier);
+                }
+            } else if (proposal.getHidden() == (action == BulkAction.HIDE)) {
+                result.addUnchanged(identifier);
+            } else {
+                proposal.setHidden(action == BulkAction.HIDE);
+                Signal.emit(ThesisProposal.SIGNAL_EDITED, new DomainObjectEvent<ThesisProposal>(proposal));
+                result.addChanged(identifier);
+            }
+        }
+
+        return result;
+    }
+
     public List<ExecutionYear> getThesisProposalsConfigurationsExecutionYears(User user) {
         return getThesisProposalsConfigurations(user).stream().map(ThesisProposalsConfiguration::getExecutionDegree)
                 .map(ExecutionDegree::getExecutionYear).distinct().sorted(ExecutionYear.COMPARATOR_BY_YEAR.reversed())
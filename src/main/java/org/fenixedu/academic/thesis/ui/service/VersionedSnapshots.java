@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Snapshots of domain state built on first use and built again when the persisted version of the state they were built
+ * from changes, so that a write made on any node is seen by the next read on every node. The version is read before
+ * the snapshot is built, so a snapshot built across a write keeps the older version and is built again on the next
+ * read. Concurrent reads of a key whose version changed share a single build.
+ */
+public class VersionedSnapshots<V> {
+
+    private static class Snapshot<V> {
+
+        private final long version;
+        private final V value;
+
+        private Snapshot(long version, V value) {
+            this.version = version;
+            this.value = value;
+        }
+
+    }
+
+    private final ConcurrentMap<String, Snapshot<V>> snapshots = new ConcurrentHashMap<String, Snapshot<V>>();
+
+    private final SingleFlight<String, Snapshot<V>> builds = new SingleFlight<String, Snapshot<V>>();
+
+    private final ToLongFunction<String> versions;
+
+    /**
+     * @param versions reads the current version of the state of a key; it is called on every read, so it must be cheap
+     */
+    public VersionedSnapshots(ToLongFunction<String> versions) {
+        this.versions = versions;
+    }
+
+    public V get(String key, Function<String, V> builder) {
+        long version = versions.applyAsLong(key);
+
+        Snapshot<V> snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot.value;
+        }
+
+        Snapshot<V> built = builds.execute(key + "@" + version, () -> new Snapshot<V>(version, builder.apply(key)));
+
+        // A slower build of an older version must not replace a newer snapshot
+        snapshots.merge(key, built, (current, candidate) -> candidate.version >= current.version ? candidate : current);
+        return built.value;
+    }
+
+}
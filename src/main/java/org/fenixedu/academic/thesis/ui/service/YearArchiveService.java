@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.fenixedu.academic.domain.ExecutionYear;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsConfiguration;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsSystem;
+import org.fenixedu.academic.thesis.domain.ThesisProposalsYear;
+import org.fenixedu.academic.thesis.ui.exception.CannotArchiveOpenConfigurationException;
+import org.fenixedu.academic.thesis.ui.exception.ThesisProposalException;
+import org.springframework.stereotype.Service;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Moves the configurations, proposals and candidacies of past execution years in and out of the archive. Years are
+ * archived one configuration per transaction, reaching the configurations through the execution degrees of the year, so
+ * objects created before partitions existed are partitioned as they are archived.
+ */
+@Service
+public class YearArchiveService {
+
+    public JsonArray getPartitions() {
+        JsonArray json = new JsonArray();
+        ThesisProposalsSystem.getInstance().getThesisProposalsYearSet().stream()
+                .sorted((y1, y2) -> ExecutionYear.REVERSE_COMPARATOR_BY_YEAR.compare(y1.getExecutionYear(),
+                        y2.getExecutionYear()))
+                .forEach(year -> json.add(toJson(year)));
+        return json;
+    }
+
+    public JsonObject archive(ExecutionYear executionYear) throws ThesisProposalException {
+        for (String configuration : getConfigurations(executionYear, true)) {
+            move(configuration, true);
+        }
+        return setArchived(executionYear, true);
+    }
+
+    public JsonObject restore(ExecutionYear executionYear) throws ThesisProposalException {
+        for (String configuration : getConfigurations(executionYear, false)) {
+            move(configuration, false);
+        }
+        return setArchived(executionYear, false);
+    }
+
+    /**
+     * Lists the configurations of an execution year, which when archiving must all have their candidacy period closed.
+     */
+    @Atomic(mode = TxMode.READ)
+    private List<String> getConfigurations(ExecutionYear executionYear, boolean archiving)
+            throws CannotArchiveOpenConfigurationException {
+
+        List<ThesisProposalsConfiguration> configurations =
+                executionYear.getExecutionDegreesSet().stream()
+                        .flatMap(executionDegree -> executionDegree.getThesisProposalsConfigurationSet().stream())
+                        .collect(Collectors.toList());
+
+        for (ThesisProposalsConfiguration configuration : configurations) {
+            if (archiving && configuration.getCandidacyPeriod().getEnd().isAfterNow()) {
+                throw new CannotArchiveOpenConfigurationException(configuration);
+            }
+        }
+
+        return configurations.stream().map(ThesisProposalsConfiguration::getExternalId).collect(Collectors.toList());
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private void move(String configurationId, boolean archiving) {
+        ThesisProposalsConfiguration configuration = FenixFramework.getDomainObject(configurationId);
+        ThesisProposalsYear year = ThesisProposalsYear.getInstance(configuration.getExecutionDegree().getExecutionYear());
+
+        if (archiving) {
+            year.archive(configuration);
+        } else {
+            year.restore(configuration);
+        }
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private JsonObject setArchived(ExecutionYear executionYear, boolean archived) {
+        ThesisProposalsYear year = ThesisProposalsYear.getInstance(executionYear);
+        year.setArchived(archived);
+        return toJson(year);
+    }
+
+    private JsonObject toJson(ThesisProposalsYear year) {
+        JsonObject json = new JsonObject();
+        json.addProperty("executionYear", year.getExecutionYear().getExternalId());
+        json.addProperty("name", year.getExecutionYear().getQualifiedName());
+        json.addProperty("archived", year.isArchived());
+        json.addProperty("configurations", year.getThesisProposalsConfigurationSet().size());
+        json.addProperty("proposals", year.getThesisProposalSet().size());
+        json.addProperty("candidacies",
+                year.getThesisProposalSet().stream().mapToInt(proposal -> proposal.getStudentThesisCandidacySet().size()).sum());
+        return json;
+    }
+
+}
@@ -48,6 +48,10 @@ ${portal.toolkit()}
 		<spring:message code="label.candidacies.empty"/>
 	</c:if>
 	<c:if test="${!empty registrations}">
+	<p>
+		<button type="button" class="btn btn-default" id="createThesesButton"><spring:message code="button.thesis.create"/></button>
+		<span id="createThesesProgress"></span>
+	</p>
 	<div class="table-responsive">
 		<table class="table table-condensed table table-bordered">
 			<thead>
@@ -103,3 +107,22 @@ ${portal.toolkit()}
 		</table>
 	</div>
 	</c:if>
+
+<script type="text/javascript">
+$("#createThesesButton").on("click", function() {
+	var url = "${pageContext.request.contextPath}/admin-proposals/createTheses";
+	var showProgress = function(progress) {
+		if (progress.state == "FAILED") {
+			$("#createThesesProgress").html("<spring:message code='label.thesis.create.failed'/>");
+			return;
+		}
+		$("#createThesesProgress").html("<spring:message code='label.thesis.create.progress'/>: " + progress.processed + " / " + progress.total);
+		if (progress.state == "RUNNING") {
+			setTimeout(function() {
+				$.get(url + "/progress?configuration=${configuration.externalId}", showProgress);
+			}, 1000);
+		}
+	};
+	$.post(url + "?configuration=${configuration.externalId}", showProgress);
+});
+</script>
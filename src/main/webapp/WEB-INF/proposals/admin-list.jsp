@@ -134,6 +134,9 @@ ${portal.toolkit()}
 <a href="${viewCandidatesUrl}" class="btn btn-default"><spring:message code="label.view.candidates"/></a>
 <a href="${exportToExcelUrl}" class="btn btn-default"><spring:message code="label.proposals.export.to.excel"/></a>
 <a href="${createProposalUrl}" class='btn btn-default'><spring:message code='title.thesisProposal.create'/></a>
+<c:url var="bulkActionUrl" value="/admin-proposals/bulk?configuration=${configuration.externalId}&isVisible=${isVisible}&isAttributed=${isAttributed}&hasCandidacy=${hasCandidacy}"/>
+<button data-action="${bulkActionUrl}&action=show" class="btn btn-default btn-bulk"><spring:message code="label.bulk.show"/></button>
+<button data-action="${bulkActionUrl}&action=hide" class="btn btn-default btn-bulk"><spring:message code="label.bulk.hide"/></button>
 <hr />
 <div class="panel panel-default">
   <div class="panel-heading"><spring:message code="label.filter" /></div>
@@ -402,4 +405,10 @@ $(".btn-visibility").on("click", function(e) {
 		}
 	 });
 });
+
+$(".btn-bulk").on("click", function(e) {
+	$.post($(e.target).data('action'), function() {
+		location.reload();
+	});
+});
 </script>
@@ -81,6 +81,17 @@ ${portal.toolkit()}
 	<p class="text-danger"><spring:message code="error.thesisProposal.${error}"/></p>
 </c:if>
 
+<c:if test="${not empty duplicateProposals}">
+	<div class="alert alert-warning">
+		<p><spring:message code="label.thesis.proposal.duplicates"/></p>
+		<ul>
+			<c:forEach items="${duplicateProposals}" var="duplicate">
+				<li>${duplicate.identifier} - <c:out value="${duplicate.title}"/> (${duplicate.singleThesisProposalsConfiguration.presentationName})</li>
+			</c:forEach>
+		</ul>
+	</div>
+</c:if>
+
 <c:url var="createUrl" value="/${baseAction}/create" />
 <c:url var="transposeUrl" value="/${baseAction}/transpose" />
 <a class="btn btn-default" href="${createUrl}"><spring:message code="button.create"/></a>
@@ -85,6 +85,17 @@ ${portal.toolkit()}
 		</tbody>
 	</table>
 </div>
+<c:if test="${pagesCount > 1}">
+	<ul class="pager">
+		<c:if test="${page > 0}">
+			<li class="previous"><a href="${pageContext.request.contextPath}/${baseAction}/transpose?page=${page - 1}"><spring:message code="button.previous"/></a></li>
+		</c:if>
+		<li>${page + 1} / ${pagesCount}</li>
+		<c:if test="${page + 1 < pagesCount}">
+			<li class="next"><a href="${pageContext.request.contextPath}/${baseAction}/transpose?page=${page + 1}"><spring:message code="button.next"/></a></li>
+		</c:if>
+	</ul>
+</c:if>
 </c:if>
 
 <style>
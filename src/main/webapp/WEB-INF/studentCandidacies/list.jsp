@@ -63,6 +63,16 @@
 </div>
 </c:if>
 
+<c:if test="${!empty ineligibleConfigs}">
+<div class="alert alert-warning">
+	<c:forEach items="${ineligibleConfigs}" var="config">
+	<p>
+	<spring:message code="label.thesis.candidacy.ineligible" arguments="${config.executionDegree.degree.sigla},${config.minECTS1stCycle},${config.minECTS2ndCycle}"/>
+	</p>
+	</c:forEach>
+</div>
+</c:if>
+
 <div role="tabpanel">
 	<!-- Nav tabs -->
 	<ul class="nav nav-tabs" role="tablist">
@@ -282,10 +292,10 @@ $(function(){
 					<td>${proposal.identifier}</td>
 					<td>${proposal.title}</td>
 					<td>
-						<c:forEach items="${proposal.getSortedParticipants()}" var="participant">
+						<c:forEach items="${proposal.participants}" var="participant">
 							<div>${participant.name} (${participant.participationPercentage}%)
-								<c:if test="${! empty participantLabelService}">
-									<small>-</small> <b>${participantLabelService.getInstitutionRole(participant)}</b>
+								<c:if test="${! empty participant.institutionRole}">
+									<small>-</small> <b>${participant.institutionRole}</b>
 								</c:if>
 							</div>
 					</c:forEach>
@@ -296,15 +306,9 @@ $(function(){
 						<button type="submit" class="btn btn-default" id="applyButton"><spring:message code="button.proposal.apply"/></button>
 
 						<input type="hidden" name="registration" value="${node.key.externalId}">
+						<input type="hidden" name="idempotencyKey">
 
-						<c:set var="result" scope="session" value='' />
-						<c:forEach items="${proposal.executionDegreeSet}" var="executionDegree" varStatus="i">
-						<c:set var="result" scope="session" value="${result}${executionDegree.degree.sigla}" />
-						<c:if test="${i.index != proposal.executionDegreeSet.size() - 1}">
-							<c:set var="result" scope="session" value="${result}, " />
-						</c:if>
-					</c:forEach>
-				<input type='button' class='detailsButton btn btn-default' data-observations='<c:out value="${proposal.observations}"/>' data-requirements='<c:out value="${proposal.requirements}"/>' data-goals='<c:out value="${proposal.goals}"/>' data-localization='<c:out value="${proposal.localization}"/>' data-degrees="${result}" value='<spring:message code="button.details"/>' data-thesis="${proposal.externalId}">
+				<input type='button' class='detailsButton btn btn-default' data-observations='<c:out value="${proposal.observations}"/>' data-requirements='<c:out value="${proposal.requirements}"/>' data-goals='<c:out value="${proposal.goals}"/>' data-localization='<c:out value="${proposal.localization}"/>' data-degrees="${proposal.degrees}" value='<spring:message code="button.details"/>' data-thesis="${proposal.externalId}">
 			</div>
 		</form:form>
 	</td>
@@ -394,3 +398,12 @@ $("#savePreferencesButton").on("click", function(e) {
 	$("#json").val(JSON.stringify(studentThesisCandidaciesJSON.studentCandidacies));
 });
 </script>
+
+<script type="text/javascript">
+// The page may be revalidated from the browser cache, so the idempotency keys are generated on every load
+$("input[name='idempotencyKey']").each(function() {
+	var bytes = new Uint8Array(16);
+	(window.crypto || window.msCrypto).getRandomValues(bytes);
+	$(this).val(Array.prototype.map.call(bytes, function(b) { return ("0" + b.toString(16)).slice(-2); }).join(""));
+});
+</script>
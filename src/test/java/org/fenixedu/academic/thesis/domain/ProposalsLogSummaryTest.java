@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class ProposalsLogSummaryTest {
+
+    private static final DateTime FIRST = new DateTime(2015, 3, 1, 10, 0);
+    private static final DateTime LAST = new DateTime(2015, 3, 20, 18, 30);
+
+    @Test
+    public void countsPreferenceAndAcceptanceUpdates() {
+        ProposalsLogSummary summary =
+                new ProposalsLogSummary(Arrays.asList("Creating new student thesis candidacy",
+                        "Updating preference number 1 -> 2", "Updating advisor acceptance false -> true",
+                        "Updating preference number 2 -> 3", "Updating advisor acceptance true -> false"), FIRST, LAST);
+
+        assertEquals(2, summary.getPreferenceUpdates());
+        assertEquals(2, summary.getAcceptanceUpdates());
+    }
+
+    @Test
+    public void describesTheFinalState() {
+        ProposalsLogSummary summary =
+                new ProposalsLogSummary(Arrays.asList("Creating new student thesis candidacy",
+                        "Updating preference number 1 -> 2"), FIRST, LAST);
+
+        assertEquals("Compacted 2 entries from " + FIRST + " to " + LAST
+                + ": 1 preference number updates (final 2), 0 advisor acceptance updates (final true)",
+                summary.getAction(2, true));
+    }
+
+}
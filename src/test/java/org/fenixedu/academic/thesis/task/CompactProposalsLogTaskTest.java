@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.task;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class CompactProposalsLogTaskTest {
+
+    @Test
+    public void startsAtTheFirstPart() {
+        assertEquals(1, CompactProposalsLogTask.getNextPart("123", Collections.<String> emptyList()));
+    }
+
+    @Test
+    public void continuesAfterTheHighestPart() {
+        assertEquals(11, CompactProposalsLogTask.getNextPart("123", Arrays.asList(
+                CompactProposalsLogTask.getArchiveFilename("123", 2), CompactProposalsLogTask.getArchiveFilename("123", 10),
+                CompactProposalsLogTask.getArchiveFilename("123", 9))));
+    }
+
+    @Test
+    public void ignoresArchivesOfOtherConfigurations() {
+        assertEquals(2, CompactProposalsLogTask.getNextPart("123", Arrays.asList(
+                CompactProposalsLogTask.getArchiveFilename("123", 1), CompactProposalsLogTask.getArchiveFilename("1234", 5),
+                "proposals-log-123-notes.csv")));
+    }
+
+}
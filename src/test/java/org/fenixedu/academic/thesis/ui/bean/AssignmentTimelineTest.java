@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.fenixedu.academic.thesis.domain.ProposalsLogEventType;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class AssignmentTimelineTest {
+
+    private static final DateTime START = new DateTime(2015, 3, 1, 10, 0);
+
+    private static AssignmentTimeline.Event event(int minute, ProposalsLogEventType type, String subject, String parent,
+            String value) {
+        return new AssignmentTimeline.Event("log" + minute, START.plusMinutes(minute), type, subject, parent, value);
+    }
+
+    private static AssignmentTimeline timeline(AssignmentTimeline.Event... events) {
+        AssignmentTimeline timeline = new AssignmentTimeline(new HashSet<String>(Arrays.asList("p1", "p2")));
+        timeline.append(Arrays.asList(events), START.plusDays(1));
+        return timeline;
+    }
+
+    @Test
+    public void replaysEventsUpToTheTimestamp() {
+        AssignmentTimeline timeline =
+                timeline(event(1, ProposalsLogEventType.PROPOSAL_CREATED, "p1", "p1", "false"),
+                        event(2, ProposalsLogEventType.CANDIDACY_CREATED, "c1", "p1", "r1 1"),
+                        event(3, ProposalsLogEventType.CANDIDACY_ACCEPTANCE, "c1", "p1", "true"),
+                        event(4, ProposalsLogEventType.PROPOSAL_VISIBILITY, "p1", "p1", "true"));
+
+        AssignmentTimeline.State before = timeline.getStateAt(START);
+        assertTrue(before.getHiddenByProposal().isEmpty());
+        assertEquals(0, before.getEventsReplayed());
+
+        AssignmentTimeline.State created = timeline.getStateAt(START.plusMinutes(2));
+        assertEquals(Boolean.FALSE, created.getHiddenByProposal().get("p1"));
+        assertEquals("p1", created.getCandidacies().get("c1").getProposal());
+        assertEquals("r1", created.getCandidacies().get("c1").getRegistration());
+        assertFalse(created.getCandidacies().get("c1").isAccepted());
+        assertEquals(2, created.getEventsReplayed());
+
+        AssignmentTimeline.State last = timeline.getStateAt(START.plusMinutes(10));
+        assertEquals(Boolean.TRUE, last.getHiddenByProposal().get("p1"));
+        assertTrue(last.getCandidacies().get("c1").isAccepted());
+        assertEquals(4, last.getEventsReplayed());
+    }
+
+    @Test
+    public void replaysReorderingsAndDeletions() {
+        AssignmentTimeline timeline =
+                timeline(event(1, ProposalsLogEventType.CANDIDACY_CREATED, "c1", "p1", "r1 1"),
+                        event(2, ProposalsLogEventType.CANDIDACY_CREATED, "c2", "p2", "r1 2"),
+                        event(3, ProposalsLogEventType.PREFERENCES_REORDERED, "r1", null, "c1=2,c2=1"),
+                        event(4, ProposalsLogEventType.CANDIDACY_DELETED, "c1", "p1", null));
+
+        AssignmentTimeline.State reordered = timeline.getStateAt(START.plusMinutes(3));
+        assertEquals(2, reordered.getCandidacies().get("c1").getPreferenceNumber());
+        assertEquals(1, reordered.getCandidacies().get("c2").getPreferenceNumber());
+
+        AssignmentTimeline.State deleted = timeline.getStateAt(START.plusMinutes(4));
+        assertNull(deleted.getCandidacies().get("c1"));
+        assertEquals(1, deleted.getCandidacies().get("c2").getPreferenceNumber());
+    }
+
+    @Test
+    public void compactedCandidaciesKeepTheirFinalState() {
+        AssignmentTimeline timeline =
+                timeline(event(1, ProposalsLogEventType.CANDIDACY_COMPACTED, "c1", "p1", "r1 3 true"),
+                        event(2, ProposalsLogEventType.CANDIDACY_PREFERENCE, "c1", "p1", "1"));
+
+        AssignmentTimeline.State compacted = timeline.getStateAt(START.plusMinutes(1));
+        assertEquals(3, compacted.getCandidacies().get("c1").getPreferenceNumber());
+        assertTrue(compacted.getCandidacies().get("c1").isAccepted());
+
+        AssignmentTimeline.State updated = timeline.getStateAt(START.plusMinutes(2));
+        assertEquals(1, updated.getCandidacies().get("c1").getPreferenceNumber());
+        assertTrue(updated.getCandidacies().get("c1").isAccepted());
+    }
+
+    @Test
+    public void replaysFromTheNearestCheckpoint() {
+        List<AssignmentTimeline.Event> events = new ArrayList<AssignmentTimeline.Event>();
+        events.add(event(0, ProposalsLogEventType.CANDIDACY_CREATED, "c1", "p1", "r1 0"));
+        for (int i = 1; i <= 3 * AssignmentTimeline.CHECKPOINT_INTERVAL; i++) {
+            events.add(event(i, ProposalsLogEventType.CANDIDACY_PREFERENCE, "c1", "p1", String.valueOf(i)));
+        }
+
+        AssignmentTimeline timeline = new AssignmentTimeline(Collections.singleton("p1"));
+        timeline.append(events.subList(0, AssignmentTimeline.CHECKPOINT_INTERVAL), START.plusHours(1));
+        timeline.append(events.subList(AssignmentTimeline.CHECKPOINT_INTERVAL, events.size()), START.plusDays(1));
+
+        for (int minute : Arrays.asList(0, 1, AssignmentTimeline.CHECKPOINT_INTERVAL,
+                AssignmentTimeline.CHECKPOINT_INTERVAL + 1, 2 * AssignmentTimeline.CHECKPOINT_INTERVAL + 7,
+                3 * AssignmentTimeline.CHECKPOINT_INTERVAL)) {
+            AssignmentTimeline.State state = timeline.getStateAt(START.plusMinutes(minute));
+            assertEquals(minute, state.getCandidacies().get("c1").getPreferenceNumber());
+            assertEquals(minute + 1, state.getEventsReplayed());
+        }
+        assertEquals(START.plusDays(1), timeline.getLoadedUntil());
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.bean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.fenixedu.academic.thesis.ui.exception.Unsuficient1stCycleCreditsException;
+import org.fenixedu.academic.thesis.ui.exception.Unsuficient2ndCycleCreditsException;
+import org.junit.Test;
+
+public class CandidacyEligibilityTest {
+
+    @Test
+    public void acceptsCreditsMeetingBothThresholds() throws Exception {
+        CandidacyEligibility eligibility = new CandidacyEligibility("plan", 180.0, 30.0);
+
+        eligibility.check(180, 30);
+        assertTrue(eligibility.isEligible(180, 30));
+    }
+
+    @Test(expected = Unsuficient1stCycleCreditsException.class)
+    public void rejectsMissing1stCycleCredits() throws Exception {
+        new CandidacyEligibility("plan", 170.0, 60.0).check(180, 30);
+    }
+
+    @Test(expected = Unsuficient2ndCycleCreditsException.class)
+    public void rejectsMissing2ndCycleCredits() throws Exception {
+        new CandidacyEligibility("plan", 180.0, 24.0).check(180, 30);
+    }
+
+    @Test
+    public void ignores1stCycleWhenThePlanHasNone() throws Exception {
+        CandidacyEligibility eligibility = new CandidacyEligibility("plan", null, 30.0);
+
+        eligibility.check(180, 30);
+        assertTrue(eligibility.isEligible(180, 30));
+    }
+
+    @Test
+    public void requiresA2ndCycle() {
+        CandidacyEligibility eligibility = new CandidacyEligibility("plan", 180.0, null);
+
+        assertFalse(eligibility.isEligible(0, 0));
+    }
+
+}
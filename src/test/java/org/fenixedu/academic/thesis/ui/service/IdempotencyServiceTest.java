@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fenixedu.academic.thesis.ui.exception.IdempotencyKeyReusedException;
+import org.fenixedu.academic.thesis.ui.exception.OutOfCandidacyPeriodException;
+import org.junit.Test;
+
+public class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private static Map<String, String[]> parameters(String registration, String key) {
+        Map<String, String[]> parameters = new HashMap<String, String[]>();
+        parameters.put("registration", new String[] { registration });
+        parameters.put(IdempotencyService.PARAMETER, new String[] { key });
+        return parameters;
+    }
+
+    private Integer write() {
+        return writes.incrementAndGet();
+    }
+
+    @Test
+    public void runsARetriedWriteOnce() throws Exception {
+        assertEquals(Integer.valueOf(1), service.execute("user /candidate/1", "key", parameters("r1", "key"), this::write));
+        assertEquals(Integer.valueOf(1), service.execute("user /candidate/1", "key", parameters("r1", "key"), this::write));
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void scopesKeys() throws Exception {
+        service.execute("user /candidate/1", "key", parameters("r1", "key"), this::write);
+        service.execute("user /candidate/2", "key", parameters("r1", "key"), this::write);
+        service.execute("other /candidate/1", "key", parameters("r1", "key"), this::write);
+        assertEquals(3, writes.get());
+    }
+
+    @Test
+    public void ignoresTheKeyParameterWhenComparingRequests() throws Exception {
+        service.execute("user /candidate/1", "key", parameters("r1", "key"), this::write);
+        service.execute("user /candidate/1", "key", parameters("r1", null), this::write);
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void rejectsAKeyReusedWithOtherParameters() throws Exception {
+        service.execute("user /candidate/1", "key", parameters("r1", "key"), this::write);
+
+        try {
+            service.execute("user /candidate/1", "key", parameters("r2", "key"), this::write);
+            fail();
+        } catch (IdempotencyKeyReusedException e) {
+            assertEquals(1, writes.get());
+        }
+    }
+
+    @Test
+    public void replaysExpectedExceptions() throws Exception {
+        IdempotencyService.Write<Integer> failing = () -> {
+            writes.incrementAndGet();
+            throw new OutOfCandidacyPeriodException();
+        };
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                service.execute("user /candidate/1", "key", parameters("r1", "key"), failing);
+                fail();
+            } catch (OutOfCandidacyPeriodException e) {
+                assertEquals(1, writes.get());
+            }
+        }
+    }
+
+    @Test
+    public void retriesUnexpectedFailures() throws Exception {
+        IdempotencyService.Write<Integer> failing = () -> {
+            writes.incrementAndGet();
+            throw new IllegalStateException();
+        };
+
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                service.execute("user /candidate/1", "key", parameters("r1", "key"), failing);
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals(attempt, writes.get());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Academic Thesis.
+ *
+ * FenixEdu Academic Thesis is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Academic Thesis is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Academic Thesis.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.academic.thesis.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VersionedSnapshotsTest {
+
+    private final Map<String, Long> versions = new HashMap<String, Long>();
+    private final AtomicInteger builds = new AtomicInteger();
+
+    private final VersionedSnapshots<String> snapshots = new VersionedSnapshots<String>(key -> versions.getOrDefault(key, 0L));
+
+    private String build(String key) {
+        return key + " " + versions.getOrDefault(key, 0L) + " #" + builds.incrementAndGet();
+    }
+
+    @Test
+    public void reusesASnapshotWhileTheVersionIsUnchanged() {
+        String first = snapshots.get("a", this::build);
+        assertSame(first, snapshots.get("a", this::build));
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void rebuildsWhenTheVersionChanges() {
+        snapshots.get("a", this::build);
+        versions.put("a", 1L);
+
+        assertEquals("a 1 #2", snapshots.get("a", this::build));
+        assertEquals("a 1 #2", snapshots.get("a", this::build));
+    }
+
+    @Test
+    public void keepsKeysApart() {
+        snapshots.get("a", this::build);
+        versions.put("b", 1L);
+        snapshots.get("b", this::build);
+
+        assertEquals("a 0 #1", snapshots.get("a", this::build));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void aSnapshotBuiltAcrossAWriteIsBuiltAgain() {
+        snapshots.get("a", key -> {
+            versions.put(key, 1L);
+            return build(key);
+        });
+
+        assertEquals("a 1 #2", snapshots.get("a", this::build));
+    }
+
+}